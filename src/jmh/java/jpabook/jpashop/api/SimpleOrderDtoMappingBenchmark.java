@@ -0,0 +1,48 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.benchmark.BenchmarkApplication;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * OrderSimpleApiController.SimpleOrderDto 엔티티 -> DTO 변환 비용
+ * member, delivery 까지 fetch join 으로 읽어둔 엔티티를 사용하므로 쿼리 없이 변환만 측정한다.
+ * (SimpleOrderDto 가 package-private 이라 같은 패키지에 둔다.)
+ */
+@State(Scope.Benchmark)
+public class SimpleOrderDtoMappingBenchmark {
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private List<Order> loaded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(orders);
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        loaded = readOnly.execute(status -> orderRepository.findAllWithMemberDelivery());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<OrderSimpleApiController.SimpleOrderDto> mapToSimpleOrderDto() {
+        return loaded.stream()
+                .map(o -> new OrderSimpleApiController.SimpleOrderDto(o))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 임베디드 H2(메모리)로 띄우고 BenchmarkDataSeeder 로 데이터를 채운다. 부하 테스트가 아니면 웹 서버 없이 띄운다.
+ * SQL 로그(p6spy, org.hibernate.SQL)는 측정값을 왜곡하므로 끈다.
+ * 샘플 데이터(InitDb, local 프로필)와 측정과 무관한 주기 작업(아웃박스 릴레이, 일별 집계 갱신)도 끈다.
+ * 재고 원장 flush 는 LEDGER 전략 측정에 포함되고, 다른 전략에서는 반영할 것이 없어 바로 끝나므로 남긴다.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(int orders, String... properties) {
+        ConfigurableApplicationContext context = builder(orders)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+
+        new BenchmarkDataSeeder(context).seed(orders);
+        return context;
+    }
+
+    /**
+     * 웹 서버(랜덤 포트)까지 띄운다. - local.server.port 로 포트 확인
+     */
+    public static ConfigurableApplicationContext startWeb(int orders, String... properties) {
+        ConfigurableApplicationContext context = builder(orders)
+                .web(WebApplicationType.SERVLET)
+                .properties("server.port=0")
+                .properties(properties)
+                .run();
+
+        new BenchmarkDataSeeder(context).seed(orders);
+        return context;
+    }
+
+    private static SpringApplicationBuilder builder(int orders) {
+        return new SpringApplicationBuilder(JpashopApplication.class)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:jpashop-bench-" + orders + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create",
+                        "decorator.datasource.enabled=false",
+                        "logging.level.org.hibernate.SQL=warn",
+                        "spring.main.banner-mode=off",
+                        "spring.profiles.active=benchmark",
+                        "jpashop.outbox.relay-enabled=false",
+                        "jpashop.analytics.rollup-enabled=false",
+                        "jpashop.datasource.replica.enabled=false");
+    }
+}
@@ -0,0 +1,102 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.batch.OrderSummaryRebuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 벤치마크 데이터 - 주문 수(orders)를 기준으로 회원, 상품, 배송, 주문상품을 JDBC 배치 insert 로 채운다.
+ * 같은 규모면 항상 같은 데이터가 만들어지도록 고정 seed 를 사용한다. (결과 재현)
+ * id 는 시퀀스 범위와 겹치지 않도록 ID_OFFSET 부터 사용한다.
+ * 주문 목록 조회 모델(order_summary)은 원본 테이블을 다 채운 뒤 OrderSummaryRebuilder 로 만든다. (JDBC insert 는 서비스를 거치지 않음)
+ */
+class BenchmarkDataSeeder {
+
+    private static final long SEED = 20221018L;
+    private static final long ID_OFFSET = 1_000_000_000L;
+    private static final int BATCH = 10_000;
+    private static final int ITEMS = 1_000;
+    private static final int ORDER_ITEMS_PER_ORDER = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderSummaryRebuilder orderSummaryRebuilder;
+    private final Random random = new Random(SEED);
+
+    BenchmarkDataSeeder(ApplicationContext context) {
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.orderSummaryRebuilder = context.getBean(OrderSummaryRebuilder.class);
+    }
+
+    void seed(int orders) {
+        int members = Math.max(orders / 10, 1);
+        insertMembers(members);
+        insertItems();
+        insertOrders(orders, members);
+        orderSummaryRebuilder.rebuild();
+    }
+
+    private void insertMembers(int members) {
+        List<Object[]> rows = new ArrayList<>(BATCH);
+        for (int i = 0; i < members; i++) {
+            rows.add(new Object[]{ID_OFFSET + i, "member" + i, "city" + (i % 100), "street" + i, String.valueOf(10000 + i % 90000)});
+            if (rows.size() == BATCH) {
+                flush("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+            }
+        }
+        flush("insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insertItems() {
+        List<Object[]> rows = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            rows.add(new Object[]{ID_OFFSET + i, "B", "book" + i, 1000 + random.nextInt(50) * 1000, Integer.MAX_VALUE / 2, 0L});
+        }
+        flush("insert into item (item_id, dtype, name, price, stock_quantity, version) values (?, ?, ?, ?, ?, ?)", rows);
+    }
+
+    private void insertOrders(int orders, int members) {
+        String deliverySql = "insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)";
+        String orderSql = "insert into orders (order_id, member_id, delivery_id, order_date, status, total_price) values (?, ?, ?, ?, ?, ?)";
+        String orderItemSql = "insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)";
+
+        LocalDateTime base = LocalDateTime.of(2022, 1, 1, 0, 0);
+        List<Object[]> deliveries = new ArrayList<>(BATCH);
+        List<Object[]> orderRows = new ArrayList<>(BATCH);
+        List<Object[]> orderItems = new ArrayList<>(BATCH * ORDER_ITEMS_PER_ORDER);
+        for (int i = 0; i < orders; i++) {
+            long id = ID_OFFSET + i;
+            int member = random.nextInt(members);
+            int totalPrice = 0;
+            for (int j = 0; j < ORDER_ITEMS_PER_ORDER; j++) {
+                int orderPrice = 1000 + random.nextInt(50) * 1000;
+                int count = 1 + random.nextInt(5);
+                orderItems.add(new Object[]{id * ORDER_ITEMS_PER_ORDER + j, id, ID_OFFSET + random.nextInt(ITEMS), orderPrice, count});
+                totalPrice += orderPrice * count;
+            }
+            deliveries.add(new Object[]{id, "city" + (member % 100), "street" + member, String.valueOf(10000 + member % 90000), "READY"});
+            orderRows.add(new Object[]{id, ID_OFFSET + member, id, Timestamp.valueOf(base.plusSeconds(i)), i % 10 == 0 ? "CANCEL" : "ORDER", totalPrice});
+
+            if (orderRows.size() == BATCH) {
+                flush(deliverySql, deliveries);
+                flush(orderSql, orderRows);
+                flush(orderItemSql, orderItems);
+            }
+        }
+        flush(deliverySql, deliveries);
+        flush(orderSql, orderRows);
+        flush(orderItemSql, orderItems);
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
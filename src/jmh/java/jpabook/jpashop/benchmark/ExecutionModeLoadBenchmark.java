@@ -0,0 +1,80 @@
+package jpabook.jpashop.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 요청 처리 스레드 모델 부하 비교 - PLATFORM(톰캣 스레드 풀) vs VIRTUAL(가상 스레드)
+ * 한 번의 측정에서 concurrency 개 요청을 동시에 보내고 모두 응답받을 때까지의 시간을 잰다.
+ * VIRTUAL 은 JDK 21 에서만 실행된다. -> ./gradlew jmh -Pjdk21
+ * 요청은 DB 를 쓰는 API 이므로 DB 동시 사용 한도(jpashop.execution.db-concurrency-limit)도 같이 적용된다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class ExecutionModeLoadBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public String mode;
+
+    @Param({"1000"})
+    public int concurrency;
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.startWeb(orders,
+                "jpashop.execution.mode=" + mode,
+                "jpashop.execution.db-concurrency-limit=10",
+                "jpashop.execution.db-acquire-timeout=60000",
+                "server.tomcat.accept-count=" + concurrency,
+                "server.tomcat.max-connections=" + (concurrency * 2));
+        int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+
+        clientExecutor = Executors.newFixedThreadPool(8);
+        client = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v2/orders?offset=0&limit=20"))
+                .timeout(Duration.ofMinutes(1))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        clientExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int concurrentRequests() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("status=" + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -0,0 +1,58 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 저장(OrderService.order) 처리량 - id 시퀀스 할당 방식 비교
+ * none       : insert 마다 시퀀스 조회 (예전 @GeneratedValue) -> 주문 1건에 orders/delivery/order_item 시퀀스 조회 3번
+ * pooled     : increment-size 개마다 시퀀스 조회 1번
+ * pooled-lo  : pooled 와 같고 시퀀스 값이 블록의 시작
+ * (none 은 increment-size 를 무시하고 1 로 동작한다.)
+ * 주문 회원/상품은 BenchmarkDataSeeder 가 넣은 데이터에서 돌아가며 고른다. (재고는 충분히 크게 들어가 있다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderInsertBenchmark {
+
+    private static final long ID_OFFSET = 1_000_000_000L; // BenchmarkDataSeeder 와 같게
+    private static final int ITEMS = 1_000;
+
+    @Param({"none", "pooled", "pooled-lo"})
+    public String optimizer;
+
+    @Param({"50", "500"})
+    public int incrementSize;
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private int members;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(orders,
+                "jpashop.sequence.optimizer=" + optimizer,
+                "jpashop.sequence.increment-size=" + incrementSize);
+        orderService = context.getBean(OrderService.class);
+        members = Math.max(orders / 10, 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long order() {
+        long i = sequence++;
+        return orderService.order(ID_OFFSET + i % members, ID_OFFSET + i % ITEMS, 1);
+    }
+}
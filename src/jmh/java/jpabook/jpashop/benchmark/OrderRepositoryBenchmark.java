@@ -0,0 +1,75 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryDto;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 주문 조회 쿼리 비교 - 서비스 계층과 같이 readOnly 트랜잭션 안에서 호출한다.
+ * findAllByString / findAllByCriteria 는 setMaxResults(1000) 이 걸려있다.
+ */
+@State(Scope.Benchmark)
+public class OrderRepositoryBenchmark {
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private OrderSummaryRepository orderSummaryRepository;
+    private TransactionTemplate readOnly;
+    private OrderSearch orderSearch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(orders);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderSimpleQueryRepository = context.getBean(OrderSimpleQueryRepository.class);
+        orderSummaryRepository = context.getBean(OrderSummaryRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        orderSearch = new OrderSearch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> findAllByString() {
+        return readOnly.execute(status -> orderRepository.findAllByString(orderSearch));
+    }
+
+    @Benchmark
+    public List<Order> findAllByCriteria() {
+        return readOnly.execute(status -> orderRepository.findAllByCriteria(orderSearch));
+    }
+
+    @Benchmark
+    public List<Order> findAllWithMemberDelivery() {
+        return readOnly.execute(status -> orderRepository.findAllWithMemberDelivery());
+    }
+
+    @Benchmark
+    public List<OrderSimpleQueryDto> findOrderDtos() {
+        return readOnly.execute(status -> orderSimpleQueryRepository.findOrderDtos());
+    }
+
+    // 같은 목록을 조인 없이 조회 모델(order_summary)에서
+    @Benchmark
+    public List<OrderSummaryDto> findOrderSummaries() {
+        return readOnly.execute(status -> orderSummaryRepository.findAll());
+    }
+}
@@ -3,6 +3,7 @@ package jpabook.jpashop;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,9 +18,14 @@ import javax.persistence.EntityManager;
  * userB
  * SPRING1 BOOK
  * SPRING2 BOOK
+ *
+ * local 프로필에서만 샘플 데이터를 넣는다. (./gradlew bootRun 이 local 로 실행, jar 기동에는 프로필이 없으므로 실행 안됨)
+ * 같은 DB 로 다시 기동하면 이미 있는 샘플 회원은 건너뛴다. (uk_member_name)
+ * 대량 데이터가 필요하면 datagen 프로필 사용 -> jpabook.jpashop.datagen.BulkDataGenerator
  */
 
 @Component
+@Profile("local")
 @RequiredArgsConstructor
 public class InitDb {
 
@@ -33,13 +39,25 @@ public class InitDb {
     }
 
     @Component
+    @Profile("local")
     @Transactional
     @RequiredArgsConstructor
     static class InitService {
 
         private final EntityManager em;
 
+        private boolean exists(String name) {
+            return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                    .setParameter("name", name)
+                    .setMaxResults(1)
+                    .getResultList()
+                    .isEmpty();
+        }
+
         public void dbInit1() {
+            if (exists("userA")) {
+                return;
+            }
             Member member = createMember("userA", "서울", "1", "1111");
             em.persist(member);
 
@@ -54,10 +72,14 @@ public class InitDb {
 
             Order order = Order.createOrder(member, createDelivery(member), orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order));
         }
 
 
         public void dbInit2() {
+            if (exists("userB")) {
+                return;
+            }
             Member member = createMember("userB", "진주", "2", "2222");
             em.persist(member);
 
@@ -72,6 +94,7 @@ public class InitDb {
             OrderItem orderItem2 = OrderItem.createOrderItem(book2, 40000, 4);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);
             em.persist(order);
+            em.persist(OrderSummary.of(order));
         }
 
 
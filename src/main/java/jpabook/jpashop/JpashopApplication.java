@@ -2,8 +2,10 @@ package jpabook.jpashop;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // 재고 예약 원장 주기적 DB 반영
 public class JpashopApplication {
 
 	public static void main(String[] args) {
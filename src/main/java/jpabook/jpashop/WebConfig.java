@@ -0,0 +1,37 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.monitor.QueryBudgetInterceptor;
+import jpabook.jpashop.monitor.QueryContextCallableInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.persistence.EntityManagerFactory;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final EntityManagerFactory emf;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new QueryBudgetInterceptor()); // 컨트롤러별 SQL 예산(@QueryBudget)
+
+        // OSIV (spring.jpa.open-in-view 는 false)
+        // 주문 목록 화면은 DTO 로 한번에 조회하므로 OSIV 를 끈다. -> 뷰에서 숨은 지연 로딩 쿼리가 나갈 수 없다. (LazyInitializationException)
+        OpenEntityManagerInViewInterceptor osiv = new OpenEntityManagerInViewInterceptor();
+        osiv.setEntityManagerFactory(emf);
+        registry.addWebRequestInterceptor(osiv)
+                .excludePathPatterns("/orders");
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // 실행기(applicationTaskExecutor)는 스프링 부트 설정 그대로 두고, 요청 지표(QueryContext)만 비동기 스레드로 넘긴다.
+        configurer.registerCallableInterceptors(new QueryContextCallableInterceptor());
+    }
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.analytics.CityRevenueDto;
+import jpabook.jpashop.repository.analytics.DailyOrderCountDto;
+import jpabook.jpashop.repository.analytics.TopItemDto;
+import jpabook.jpashop.service.analytics.AnalyticsService;
+import jpabook.jpashop.service.analytics.DailyRollupRefresher;
+import jpabook.jpashop.service.analytics.OrderValueStats;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 매출/주문 분석 - from, to 는 주문 일자(yyyy-MM-dd, 양 끝 포함), 없으면 오늘까지 최근 30일
+ */
+@RestController
+@RequiredArgsConstructor
+public class AnalyticsApiController {
+
+    private static final int DEFAULT_DAYS = 30;
+    private static final int MAX_DAYS = 366 * 5;
+    private static final int MAX_LIMIT = 100;
+
+    private final AnalyticsService analyticsService;
+    private final DailyRollupRefresher dailyRollupRefresher;
+
+    // 매출 상위 상품
+    @GetMapping("/api/v1/analytics/top-items")
+    @QueryBudget(1)
+    public Result<List<TopItemDto>> topItems(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "10") int limit){
+        Period period = Period.of(from, to);
+        return new Result<>(period.from, period.to,
+                analyticsService.findTopItems(period.from, period.to, Math.max(1, Math.min(limit, MAX_LIMIT))));
+    }
+
+    // 일별 주문 상태별 주문 수
+    @GetMapping("/api/v1/analytics/daily-orders")
+    @QueryBudget(1)
+    public Result<List<DailyOrderCountDto>> dailyOrders(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        Period period = Period.of(from, to);
+        return new Result<>(period.from, period.to, analyticsService.findDailyOrderCounts(period.from, period.to));
+    }
+
+    // 도시별 매출 (배송 주소)
+    @GetMapping("/api/v1/analytics/revenue-by-city")
+    @QueryBudget(1)
+    public Result<List<CityRevenueDto>> revenueByCity(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        Period period = Period.of(from, to);
+        return new Result<>(period.from, period.to, analyticsService.findRevenueByCity(period.from, period.to));
+    }
+
+    // 주문 금액 분포 (백분위) - 원본을 바로 집계
+    @GetMapping("/api/v1/analytics/order-values")
+    public Result<OrderValueStats> orderValues(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to){
+        Period period = Period.of(from, to);
+        return new Result<>(period.from, period.to, analyticsService.findOrderValueStats(period.from, period.to));
+    }
+
+    // 일별 집계 바로 갱신 (주기 갱신을 기다리지 않을 때)
+    @PostMapping("/api/v1/analytics/rollups/refresh")
+    public RefreshResponse refresh(){
+        return new RefreshResponse(dailyRollupRefresher.refresh());
+    }
+
+    @AllArgsConstructor
+    static class Period{
+        private final LocalDate from;
+        private final LocalDate to;
+
+        static Period of(LocalDate from, LocalDate to){
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+            if (start.isAfter(end)) {
+                throw new IllegalArgumentException("from 이 to 보다 늦습니다. from=" + start + ", to=" + end);
+            }
+            if (start.plusDays(MAX_DAYS).isBefore(end)) {
+                throw new IllegalArgumentException("조회 기간은 최대 " + MAX_DAYS + "일 입니다.");
+            }
+            return new Period(start, end);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T>{
+        private LocalDate from;
+        private LocalDate to;
+        private T data;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class RefreshResponse{
+        private int refreshedDays;
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.OrderTicket;
+import jpabook.jpashop.domain.OrderTicketStatus;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.service.async.AsyncOrderService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 접수(비동기) + 처리 결과 조회
+ * 접수는 디스크 로그에 기록만 하고 202 + ticket 을 돌려준다. 결과는 ticket 으로 조회한다.
+ */
+@RestController
+@ConditionalOnProperty(prefix = "jpashop.order.async", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AsyncOrderApiController {
+
+    private final AsyncOrderService asyncOrderService;
+
+    @PostMapping("/api/v1/orders/async")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @QueryBudget(0)
+    public AcceptOrderResponse accept(@RequestBody @Valid AcceptOrderRequest request){
+        long ticket = asyncOrderService.accept(request.getMemberId(), request.getItemId(), request.getCount());
+        return new AcceptOrderResponse(ticket, OrderTicketStatus.QUEUED);
+    }
+
+    @GetMapping("/api/v1/orders/tickets/{ticket}")
+    @QueryBudget(1)
+    public ResponseEntity<OrderTicketDto> ticket(@PathVariable("ticket") long ticket){
+        OrderTicket orderTicket = asyncOrderService.findTicket(ticket);
+        if (orderTicket == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new OrderTicketDto(orderTicket.getId(), orderTicket.getStatus(), orderTicket.getOrderId(),
+                orderTicket.getMessage(), orderTicket.getAcceptedAt(), orderTicket.getProcessedAt()));
+    }
+
+    @Data
+    static class AcceptOrderRequest{
+        @NotNull
+        private Long memberId;
+        @NotNull
+        private Long itemId;
+        @Min(1)
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class AcceptOrderResponse{
+        private Long ticket;
+        private OrderTicketStatus status;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class OrderTicketDto{
+        private Long ticket;
+        private OrderTicketStatus status;
+        private Long orderId;
+        private String message;
+        private LocalDateTime acceptedAt;
+        private LocalDateTime processedAt;
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 2차 캐시 hit/miss 통계 조회 (hibernate.generate_statistics: true 일 때만 집계된다)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CacheApiController {
+
+    private final EntityManagerFactory emf;
+
+    @GetMapping("/api/v1/cache-stats")
+    public CacheStatsDto cacheStats(){
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        List<RegionStatsDto> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .map(name -> {
+                    CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+                    return region == null ? null : new RegionStatsDto(name, region.getHitCount(), region.getMissCount(),
+                            region.getPutCount(), region.getElementCountInMemory());
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new CacheStatsDto(statistics.getSecondLevelCacheHitCount(), statistics.getSecondLevelCacheMissCount(),
+                statistics.getQueryCacheHitCount(), statistics.getQueryCacheMissCount(), regions);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CacheStatsDto{
+        private long hitCount;
+        private long missCount;
+        private long queryHitCount;
+        private long queryMissCount;
+        private List<RegionStatsDto> regions;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class RegionStatsDto{
+        private String region;
+        private long hitCount;
+        private long missCount;
+        private long putCount;
+        private long elementCount;
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.CatalogNames;
+import jpabook.jpashop.repository.CatalogSnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 폼 회원/상품 자동완성 (메모리 스냅샷 - DB 조회 없음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CatalogApiController {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final CatalogSnapshot catalogSnapshot;
+
+    @GetMapping("/api/v1/catalog/members")
+    @QueryBudget(0)
+    public List<CatalogEntryDto> members(@RequestParam(value = "q", defaultValue = "") String query,
+                                         @RequestParam(value = "limit", defaultValue = "20") int limit){
+        return toDtos(catalogSnapshot.searchMembers(query.trim(), clamp(limit)));
+    }
+
+    @GetMapping("/api/v1/catalog/items")
+    @QueryBudget(0)
+    public List<CatalogEntryDto> items(@RequestParam(value = "q", defaultValue = "") String query,
+                                       @RequestParam(value = "limit", defaultValue = "20") int limit){
+        return toDtos(catalogSnapshot.searchItems(query.trim(), clamp(limit)));
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private static List<CatalogEntryDto> toDtos(List<CatalogNames.Entry> entries) {
+        return entries.stream()
+                .map(e -> new CatalogEntryDto(e.getId(), e.getName()))
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CatalogEntryDto{
+        private Long id;
+        private String name;
+    }
+}
@@ -0,0 +1,104 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.CategoryTree;
+import jpabook.jpashop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 카테고리 트리 탐색(메모리 스냅샷)과 하위 트리 상품 조회(클로저 테이블)
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final CategoryService categoryService;
+
+    @GetMapping("/api/v1/categories")
+    public List<CategoryNodeDto> roots(){
+        return toDtos(categoryService.getTree().getRoots());
+    }
+
+    @GetMapping("/api/v1/categories/{id}/children")
+    public List<CategoryNodeDto> children(@PathVariable("id") Long id){
+        return toDtos(categoryService.getTree().getChildren(id));
+    }
+
+    @GetMapping("/api/v1/categories/{id}/path")
+    public List<CategoryNodeDto> path(@PathVariable("id") Long id){
+        return toDtos(categoryService.getTree().getPath(id));
+    }
+
+    @GetMapping("/api/v1/categories/{id}/items")
+    @QueryBudget(1)
+    public List<CategoryItemDto> subtreeItems(@PathVariable("id") Long id,
+                                              @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                              @RequestParam(value = "limit", defaultValue = "100") int limit){
+        List<Item> items = categoryService.findSubtreeItems(id, Math.max(offset, 0), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return items.stream()
+                .map(i -> new CategoryItemDto(i.getId(), i.getName(), i.getPrice()))
+                .collect(Collectors.toList());
+    }
+
+    @PostMapping("/api/v1/categories")
+    public CreateCategoryResponse create(@RequestBody @Valid CreateCategoryRequest request){
+        return new CreateCategoryResponse(categoryService.create(request.getName(), request.getParentId()));
+    }
+
+    @PutMapping("/api/v1/categories/{id}/parent")
+    public void move(@PathVariable("id") Long id, @RequestBody MoveCategoryRequest request){
+        categoryService.move(id, request.getParentId());
+    }
+
+    private List<CategoryNodeDto> toDtos(List<CategoryTree.Node> nodes) {
+        return nodes.stream()
+                .map(n -> new CategoryNodeDto(n.getId(), n.getName(), n.getParentId(), n.getChildIds().size()))
+                .collect(Collectors.toList());
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CategoryNodeDto{
+        private Long id;
+        private String name;
+        private Long parentId;
+        private int childCount;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CategoryItemDto{
+        private Long itemId;
+        private String name;
+        private int price;
+    }
+
+    @Data
+    static class CreateCategoryRequest{
+        @NotEmpty
+        private String name;
+        private Long parentId; // null 이면 루트
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse{
+        private Long id;
+    }
+
+    @Data
+    static class MoveCategoryRequest{
+        private Long parentId; // null 이면 루트로
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.outbox.InMemoryOutboxSink;
+import jpabook.jpashop.outbox.OutboxMessage;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 변경 이벤트 따라 읽기 - 주문/상품 테이블을 주기적으로 훑는 대신 after(마지막으로 받은 publishSeq) 이후 이벤트만 받아간다.
+ * 메모리 sink 가 답할 수 있으면 DB 를 거치지 않고, 아니면(재기동, 다른 인스턴스, 파일 sink) 보관 중인 outbox_event 를 publishSeq 범위로 읽는다.
+ */
+@RestController
+@RequiredArgsConstructor
+public class ChangeApiController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final ObjectProvider<InMemoryOutboxSink> inMemoryOutboxSink;
+    private final OutboxRepository outboxRepository;
+
+    @GetMapping("/api/v1/changes")
+    @QueryBudget(2)
+    public ChangesResponse changes(
+            @RequestParam(value = "after", defaultValue = "0") long after,
+            @RequestParam(value = "limit", defaultValue = "100") int limit){
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        InMemoryOutboxSink sink = inMemoryOutboxSink.getIfAvailable();
+        InMemoryOutboxSink.Changes changes = sink != null ? sink.read(after, size) : null;
+        if (changes == null) {
+            changes = readStored(after, size);
+        }
+        return new ChangesResponse(changes.getMessages(), changes.getNext(), changes.isTruncated());
+    }
+
+    // 보관 기간이 지나 지워진 publishSeq 를 요청하면 truncated
+    private InMemoryOutboxSink.Changes readStored(long after, int limit) {
+        Long oldest = outboxRepository.findOldestPublishSeq();
+        List<OutboxMessage> messages = outboxRepository.findPublishedAfter(after, limit).stream()
+                .map(OutboxMessage::of)
+                .collect(Collectors.toList());
+        long next = messages.isEmpty() ? after : messages.get(messages.size() - 1).getPublishSeq();
+        return new InMemoryOutboxSink.Changes(messages, next, oldest != null && after < oldest - 1);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class ChangesResponse{
+        private List<OutboxMessage> data;
+        private long next;
+        private boolean truncated;
+    }
+}
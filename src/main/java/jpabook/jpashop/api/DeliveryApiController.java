@@ -0,0 +1,82 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.DeliveryDto;
+import jpabook.jpashop.service.delivery.CarrierFileFormat;
+import jpabook.jpashop.service.delivery.DeliveryImportResult;
+import jpabook.jpashop.service.delivery.DeliveryImportService;
+import jpabook.jpashop.service.delivery.DeliveryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 배송 - 택배사 상태 파일 반영, 상태별 배송 목록/건수 (창고 대시보드)
+ */
+@RestController
+@RequiredArgsConstructor
+public class DeliveryApiController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final DeliveryService deliveryService;
+    private final DeliveryImportService deliveryImportService;
+
+    /**
+     * 택배사 파일 반영 - 요청 본문을 그대로 읽는다.
+     * ex) curl -X POST -H 'Content-Type: text/csv' --data-binary @carrier.csv localhost:8080/api/v1/deliveries/status-imports
+     */
+    @PostMapping(value = "/api/v1/deliveries/status-imports", consumes = "text/csv")
+    public DeliveryImportResult importCsv(InputStream body) throws IOException {
+        return deliveryImportService.importStatuses(body, CarrierFileFormat.CSV);
+    }
+
+    @PostMapping(value = "/api/v1/deliveries/status-imports", consumes = "application/x-ndjson")
+    public DeliveryImportResult importNdjson(InputStream body) throws IOException {
+        return deliveryImportService.importStatuses(body, CarrierFileFormat.NDJSON);
+    }
+
+    /**
+     * 상태별 배송 목록 - keyset 페이징, 응답의 nextCursor 를 다음 요청의 cursor 로 넘긴다. 마지막 페이지면 null
+     */
+    @GetMapping("/api/v1/deliveries")
+    @QueryBudget(1)
+    public CursorResult<List<DeliveryDto>> deliveries(@RequestParam("status") DeliveryStatus status,
+                                                      @RequestParam(value = "cursor", required = false) Long cursor,
+                                                      @RequestParam(value = "size", defaultValue = "100") int size){
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<DeliveryDto> result = deliveryService.findDeliveries(status, cursor, pageSize + 1);
+        boolean hasNext = result.size() > pageSize;
+        if (hasNext) {
+            result = result.subList(0, pageSize);
+        }
+        Long nextCursor = hasNext ? result.get(result.size() - 1).getDeliveryId() : null;
+        return new CursorResult<>(result.size(), nextCursor, result);
+    }
+
+    @GetMapping("/api/v1/deliveries/counts")
+    @QueryBudget(1)
+    public Map<DeliveryStatus, Long> counts(){
+        return deliveryService.countByStatus();
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T>{
+        private int count;
+        private Long nextCursor;
+        private T data;
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.monitor.EndpointMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 엔드포인트별 응답 시간, DB 시간, SQL 수, 엔티티 로딩 수 지표 (Prometheus 수집용)
+ */
+@RestController
+@RequiredArgsConstructor
+public class MetricsApiController {
+
+    private final EndpointMetrics endpointMetrics;
+
+    @GetMapping(value = "/api/v1/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String metrics(){
+        return endpointMetrics.scrape();
+    }
+}
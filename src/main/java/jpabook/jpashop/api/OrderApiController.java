@@ -1,5 +1,128 @@
 package jpabook.jpashop.api;
 
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.BulkCancelResult;
+import jpabook.jpashop.service.BulkOrderResult;
+import jpabook.jpashop.service.OrderBulkService;
+import jpabook.jpashop.service.OrderRequest;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 컬렉션 조회 (OneToMany)
+ * Order -> OrderItems -> Item
+ * v1: 엔티티 조회 + xToOne 은 fetch join, 컬렉션은 default_batch_fetch_size 로 IN 쿼리 최적화
+ * v2: DTO 직접 조회 + 페이지 단위로 OrderItem 을 IN 쿼리 한번에 조회
+ * 두 API 는 같은 JSON 을 반환하므로 쿼리 수와 응답 시간을 비교할 수 있다.
+ */
+@RestController
+@RequiredArgsConstructor
 public class OrderApiController {
 
+    private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final OrderBulkService orderBulkService;
+
+    @GetMapping("/api/v1/orders")
+    @QueryBudget(3)
+    public List<OrderDto> ordersV1(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                   @RequestParam(value = "limit", defaultValue = "100") int limit){
+        // xToOne 관계는 fetch join 해도 row 수가 늘지 않으므로 페이징 가능
+        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+
+        // orderItems, item 은 지연 로딩 -> hibernate.default_batch_fetch_size 만큼 IN 쿼리로 묶어서 조회된다.
+        List<OrderDto> result = orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(Collectors.toList());
+
+        return result;
+    }
+
+    @GetMapping("/api/v2/orders")
+    @QueryBudget(2)
+    public List<OrderQueryDto> ordersV2(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                        @RequestParam(value = "limit", defaultValue = "100") int limit){
+        return orderQueryRepository.findAllByDto(offset, limit);
+    }
+
+    /**
+     * 대량 주문 - 주문 여러 건(주문마다 상품 여러 개)을 한번에 등록하고 배치별 처리량을 응답한다.
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResult bulkOrder(@RequestBody @Valid BulkOrderRequest request){
+        return orderBulkService.order(request.getOrders());
+    }
+
+    /**
+     * 대량 취소 - 주문 id 목록을 배치(트랜잭션) 단위로 취소하고 주문별 성공/실패를 응답한다.
+     */
+    @PostMapping("/api/v1/orders/bulk-cancel")
+    public BulkCancelResult bulkCancel(@RequestBody @Valid BulkCancelRequest request){
+        return orderBulkService.cancel(request.getOrderIds());
+    }
+
+    @Data
+    static class BulkOrderRequest{
+        @NotEmpty
+        @Valid
+        private List<OrderRequest> orders;
+    }
+
+    @Data
+    static class BulkCancelRequest{
+        @NotEmpty
+        private List<Long> orderIds;
+    }
+
+    @Data
+    static class OrderDto{
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private Address address;
+        private List<OrderItemDto> orderItems; // dto 안에도 엔티티가 있으면 안된다. OrderItem 도 dto로 변환
+
+        public OrderDto(Order order){
+            orderId = order.getId();
+            name = order.getMember().getName();
+            orderDate = order.getOrderDate();
+            orderStatus = order.getStatus();
+            address = order.getDelivery().getAddress();
+            orderItems = order.getOrderItems().stream()
+                    .map(orderItem -> new OrderItemDto(orderItem))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    static class OrderItemDto{
+        private String itemName; // 상품 명
+        private int orderPrice; // 주문 가격
+        private int count; // 주문 수량
+
+        public OrderItemDto(OrderItem orderItem){
+            itemName = orderItem.getItem().getName();
+            orderPrice = orderItem.getOrderPrice();
+            count = orderItem.getCount();
+        }
+    }
 }
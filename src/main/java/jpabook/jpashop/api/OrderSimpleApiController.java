@@ -1,17 +1,26 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.OrderCursor;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.repository.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryDto;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import jpabook.jpashop.service.OrderQueryService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -27,7 +36,11 @@ import java.util.stream.Collectors;
 public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
-    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final OrderQueryService orderQueryService;
+    private final ObjectMapper objectMapper;
+
+    private static final int MAX_PAGE_SIZE = 1000; // 커서 페이징 한번에 최대 조회 건수
 
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1(){
@@ -48,6 +61,7 @@ public class OrderSimpleApiController {
     }
 
     @GetMapping("/api/v3/simple-orders")
+    @QueryBudget(1)
     public List<SimpleOrderDto> ordersV3(){
         List<Order> orders = orderRepository.findAllWithMemberDelivery();
 
@@ -58,9 +72,63 @@ public class OrderSimpleApiController {
         return result;
     }
 
+    /**
+     * 주문 목록 조회 모델(order_summary) 하나만 읽는다. - orders, member, delivery 조인 없음
+     */
     @GetMapping("/api/v4/simple-orders")
-    public List<OrderSimpleQueryDto> ordersV4(){
-        return orderSimpleQueryRepository.findOrderDtos();
+    @QueryBudget(1)
+    public List<OrderSummaryDto> ordersV4(){
+        return orderSummaryRepository.findAll();
+    }
+
+    /**
+     * v4 스트리밍 - NDJSON (한 줄에 주문 하나)
+     * 전체 결과를 List 로 만들지 않고 DB 커서에서 읽는 대로 바로 응답에 쓴다. 주문 수와 상관없이 힙 사용량이 일정하다.
+     * 비동기 스레드에서 실행되지만 요청 지표(QueryContext)는 이어지고, 시간은 스트리밍이 끝난 시점까지 잰다.
+     */
+    @GetMapping(value = "/api/v4/simple-orders/stream", produces = "application/x-ndjson")
+    public StreamingResponseBody ordersV4Stream(){
+        return out -> orderQueryService.streamOrderDtos(dto -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(dto));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * keyset(커서) 페이징 - OrderSearch 조건(memberName, orderStatus) 사용 가능
+     * 응답의 nextCursor 를 다음 요청의 cursor 로 넘기면 이어서 조회한다. 마지막 페이지면 nextCursor = null
+     * v4 와 같이 주문 목록 조회 모델(order_summary)에서 읽는다.
+     */
+    @GetMapping("/api/v5/simple-orders")
+    @QueryBudget(1)
+    public CursorResult<List<OrderSummaryDto>> ordersV5(OrderSearch orderSearch,
+                                                       @RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "size", defaultValue = "100") int size){
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        List<OrderSummaryDto> result = orderSummaryRepository.findAllByCursor(orderSearch, OrderCursor.decode(cursor), pageSize + 1);
+        boolean hasNext = result.size() > pageSize;
+        if (hasNext) {
+            result = result.subList(0, pageSize);
+        }
+
+        OrderSummaryDto last = hasNext ? result.get(result.size() - 1) : null;
+        String nextCursor = last != null ? new OrderCursor(last.getOrderDate(), last.getOrderId()).encode() : null;
+
+        return new CursorResult<>(result.size(), nextCursor, result);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T>{
+        private int count;
+        private String nextCursor;
+        private T data;
     }
 
     @Data
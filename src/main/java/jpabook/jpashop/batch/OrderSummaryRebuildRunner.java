@@ -0,0 +1,25 @@
+package jpabook.jpashop.batch;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * 주문 목록 조회 모델(order_summary) 재생성 명령
+ * 테이블을 처음 만든 뒤나 조회 모델이 원본과 어긋났을 때 실행한다. (ddl-auto: none 이면 먼저 테이블을 만들어야 한다)
+ *   java -jar jpashop.jar --spring.profiles.active=summary-rebuild --jpashop.order.summary.rebuild-threads=8
+ */
+@Component
+@Profile("summary-rebuild")
+@RequiredArgsConstructor
+public class OrderSummaryRebuildRunner implements ApplicationRunner {
+
+    private final OrderSummaryRebuilder orderSummaryRebuilder;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        orderSummaryRebuilder.rebuild();
+    }
+}
@@ -0,0 +1,92 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 주문 목록 조회 모델(order_summary) 전체 재생성
+ * 주문 id 범위를 chunkSize 씩 나눠서 threads 개 스레드가 동시에 처리하고, 범위마다 트랜잭션을 커밋한다.
+ * 범위 하나는 delete + insert ... select 두 문장이라 주문 테이블을 애플리케이션으로 읽어오지 않는다.
+ * 재생성 중에 들어온 주문/취소는 그 범위 트랜잭션과 겹치면 해당 범위만 실패할 수 있다 -> 범위 단위로 한 번 더 시도한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryRebuilder {
+
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final OrderRepository orderRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${jpashop.order.summary.rebuild-threads:4}")
+    private int threads;
+
+    @Value("${jpashop.order.summary.rebuild-chunk-size:10000}")
+    private long chunkSize;
+
+    public long rebuild() {
+        long start = System.currentTimeMillis();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] range = orderRepository.findIdRange();
+        tx.executeWithoutResult(status -> orderSummaryRepository.deleteOutside(range[0], range[1]));
+        if (range[0] == null) {
+            log.info("order summary rebuild: no orders");
+            return 0;
+        }
+
+        AtomicLong rebuilt = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long from = range[0]; from <= range[1]; from += chunkSize) {
+                long fromId = from;
+                long toId = Math.min(from + chunkSize - 1, range[1]);
+                futures.add(executor.submit(() -> rebuilt.addAndGet(rebuildChunk(tx, fromId, toId))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 목록 재생성이 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("주문 목록 재생성에 실패했습니다.", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("order summary rebuild done. orders={}, id {} ~ {}, threads={}, elapsed={}ms",
+                rebuilt.get(), range[0], range[1], threads, System.currentTimeMillis() - start);
+        return rebuilt.get();
+    }
+
+    private int rebuildChunk(TransactionTemplate tx, long fromId, long toId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer count = tx.execute(status -> orderSummaryRepository.rebuildRange(fromId, toId));
+                return count == null ? 0 : count;
+            } catch (RuntimeException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("order summary rebuild retry. id {} ~ {}", fromId, toId, e);
+            }
+        }
+    }
+}
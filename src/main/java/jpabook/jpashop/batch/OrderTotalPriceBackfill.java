@@ -0,0 +1,49 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 주문 전체 가격(orders.total_price) 1회성 채우기
+ * 컬럼 추가 후 한번 실행한다. (ddl-auto: none 이면 먼저 컬럼을 추가해야 한다)
+ *   alter table orders add column total_price integer default 0 not null;
+ *   java -jar jpashop.jar --spring.profiles.active=backfill
+ * id 범위를 CHUNK 건씩 나눠서 범위마다 트랜잭션을 커밋한다.
+ */
+@Slf4j
+@Component
+@Profile("backfill")
+@RequiredArgsConstructor
+public class OrderTotalPriceBackfill implements ApplicationRunner {
+
+    private static final long CHUNK = 10_000;
+
+    private final OrderRepository orderRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long[] range = orderRepository.findIdRange();
+        if (range[0] == null) {
+            log.info("total price backfill: no orders");
+            return;
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        long updated = 0;
+        for (long from = range[0]; from <= range[1]; from += CHUNK) {
+            long to = Math.min(from + CHUNK - 1, range[1]);
+            long fromId = from;
+            Integer count = tx.execute(status -> orderRepository.backfillTotalPrice(fromId, to));
+            updated += count == null ? 0 : count;
+            log.info("total price backfill: id {} ~ {} done, updated={}", from, to, updated);
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.OrderTicket;
+import jpabook.jpashop.monitor.QueryBudget;
+import jpabook.jpashop.repository.OrderListDto;
 import jpabook.jpashop.repository.OrderSearch;
-import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderFacade;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.async.AsyncOrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -19,19 +20,14 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
-    private final MemberService memberService;
-    private final ItemService itemService;
+    private final OrderFacade orderFacade;
+    private final ObjectProvider<AsyncOrderService> asyncOrderService; // 비동기 접수를 켠 경우에만 있다.
 
-    @GetMapping("/order")
-    public String createForm(Model model){
-
-        // 선택할 수 있는 리스트를 제공하기 위해 list를 전부 불러와서 전달해줌
-        List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
-
-        model.addAttribute("members", members);
-        model.addAttribute("items", items);
+    private static final int ORDER_PAGE_SIZE = 20; // 주문 목록 한 페이지 건수
 
+    @GetMapping("/order")
+    public String createForm(){
+        // 회원/상품 목록은 폼에서 자동완성(/api/v1/catalog)으로 필요한 만큼만 가져온다.
         return "order/orderForm";
     }
 
@@ -46,10 +42,27 @@ public class OrderController {
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count){
 
-        orderService.order(memberId, itemId, count);
+        AsyncOrderService async = asyncOrderService.getIfAvailable();
+        if (async != null) {
+            // 접수만 하고 바로 응답 - 처리 결과는 티켓 화면에서 확인
+            return "redirect:/order/tickets/" + async.accept(memberId, itemId, count);
+        }
+        orderFacade.order(memberId, itemId, count);
         return "redirect:/orders";
     }
 
+    // 비동기 주문 처리 결과 (jpashop.order.async.enabled=true)
+    @GetMapping("/order/tickets/{ticket}")
+    public String orderTicket(@PathVariable("ticket") long ticket, Model model){
+        AsyncOrderService async = asyncOrderService.getIfAvailable();
+        OrderTicket orderTicket = async == null ? null : async.findTicket(ticket);
+        if (orderTicket == null) {
+            return "redirect:/orders";
+        }
+        model.addAttribute("ticket", orderTicket);
+        return "order/orderTicket";
+    }
+
     //주문 실행
     //주문할 회원과 상품 그리고 수량을 선택해서 Submit 버튼을 누르면 /order URL을 POST 방식으로 호출
     //컨트롤러의 order() 메서드를 실행
@@ -58,17 +71,30 @@ public class OrderController {
 
 
     @GetMapping("/orders")
-    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model){
+    @QueryBudget(1)
+    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @RequestParam(value = "page", defaultValue = "0") int page,
+                            Model model){
     // 단순하게 화면에서 조회하는 기능만 있을 경우 컨트롤러에서 레파지도토리로 바로 불러도 괜찮다
-        List<Order> orders = orderService.findOrders(orderSearch);
+        int currentPage = Math.max(page, 0);
+        // 다음 페이지 존재 여부를 알기 위해 1건 더 조회
+        // 화면에 필요한 값만 DTO 로 한번에 조회 - 이 경로는 OSIV 를 끄므로(WebConfig) 뷰에서 지연 로딩할 수 없다.
+        List<OrderListDto> orders = orderService.findOrderList(orderSearch, currentPage * ORDER_PAGE_SIZE, ORDER_PAGE_SIZE + 1);
+        boolean hasNext = orders.size() > ORDER_PAGE_SIZE;
+        if (hasNext) {
+            orders = orders.subList(0, ORDER_PAGE_SIZE);
+        }
+
         model.addAttribute("orders", orders);
+        model.addAttribute("page", currentPage);
+        model.addAttribute("hasNext", hasNext);
 
         return "order/orderList";
     }
 
     @PostMapping("/orders/{orderId}/cancel")
     public String cancelOrder(@PathVariable("orderId") Long orderId){
-        orderService.cancelOrder(orderId);
+        orderFacade.cancelOrder(orderId);
         return "redirect:/orders";
     }
 }
@@ -0,0 +1,295 @@
+package jpabook.jpashop.datagen;
+
+import jpabook.jpashop.batch.OrderSummaryRebuilder;
+import jpabook.jpashop.repository.CatalogSnapshot;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
+import jpabook.jpashop.sequence.SequenceMigrator;
+import jpabook.jpashop.service.analytics.DailyRollupRefresher;
+import jpabook.jpashop.service.CategoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 대량 테스트 데이터 생성기 - 회원, 상품(Book/Album/Movie), 카테고리 트리, 주문(배송, 주문상품)
+ * JPA 를 거치지 않고 JDBC 배치 insert 로 넣고, 범위를 나눠서(partition) 여러 스레드가 동시에 생성한다.
+ * id 는 현재 테이블 최대 id 다음부터 직접 할당하고, 끝나면 시퀀스를 그 뒤로 옮겨서 애플리케이션이 만드는 id 와 겹치지 않게 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkDataGenerator {
+
+    private static final String[] ID_TABLES = {
+            "select max(member_id) from member",
+            "select max(item_id) from item",
+            "select max(category_id) from category",
+            "select max(order_id) from orders",
+            "select max(order_item_id) from order_item",
+            "select max(delivery_id) from delivery"};
+    private static final int SEQUENCE_GAP = 1_000; // 실행 중인 인스턴스가 미리 받아 둔 pooled 블록(jpashop.sequence.increment-size) 보다 크게
+
+    private static final String MEMBER_SQL = "insert into member (member_id, name, city, street, zipcode) values (?, ?, ?, ?, ?)";
+    private static final String ITEM_SQL = "insert into item (item_id, dtype, name, price, stock_quantity, version, author, isbn, artist, etc, director, actor)" +
+            " values (?, ?, ?, ?, ?, 0, ?, ?, ?, ?, ?, ?)";
+    private static final String CATEGORY_SQL = "insert into category (category_id, name, parent_id) values (?, ?, ?)";
+    private static final String CATEGORY_ITEM_SQL = "insert into category_item (category_id, item_id) values (?, ?)";
+    private static final String DELIVERY_SQL = "insert into delivery (delivery_id, city, street, zipcode, status) values (?, ?, ?, ?, ?)";
+    private static final String ORDER_SQL = "insert into orders (order_id, member_id, delivery_id, order_date, status, total_price) values (?, ?, ?, ?, ?, ?)";
+    private static final String ORDER_ITEM_SQL = "insert into order_item (order_item_id, order_id, item_id, order_price, count) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataGeneratorProperties properties;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
+    private final CategoryService categoryService;
+    private final CatalogSnapshot catalogSnapshot;
+    private final SequenceMigrator sequenceMigrator;
+    private final OrderSummaryRebuilder orderSummaryRebuilder;
+    private final DailyRollupRefresher dailyRollupRefresher;
+
+    public void generate() {
+        long start = System.currentTimeMillis();
+        IdRange ids = new IdRange(nextBaseId(), properties);
+        log.info("data generation start. members={}, items={}, categories={}, orders={}, threads={}",
+                properties.getMembers(), properties.getItems(), properties.getCategories(), properties.getOrders(), properties.getThreads());
+
+        insertCategories(ids);
+
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        try {
+            runPartitioned(executor, "member", properties.getMembers(), (from, to, random, progress) -> insertMembers(ids, from, to, progress));
+            runPartitioned(executor, "item", properties.getItems(), (from, to, random, progress) -> insertItems(ids, from, to, random, progress));
+            runPartitioned(executor, "order", properties.getOrders(), (from, to, random, progress) -> insertOrders(ids, from, to, random, progress));
+        } finally {
+            executor.shutdown();
+        }
+
+        sequenceMigrator.realign(); // 시퀀스를 넣은 데이터의 최대 id 뒤로
+        memberNameIndex.rebuild(); // JDBC 로 직접 넣은 회원 반영
+        memberNameFilter.rebuild();
+        categoryService.rebuild(); // 카테고리 클로저 테이블 + 트리 스냅샷
+        catalogSnapshot.rebuild(); // 주문 폼 자동완성
+        orderSummaryRebuilder.rebuild(); // 주문 목록 조회 모델
+        dailyRollupRefresher.refresh(); // 일별 집계 (재생성된 주문 일자 전체)
+        log.info("data generation done. elapsed={}s", (System.currentTimeMillis() - start) / 1000);
+    }
+
+    private void insertMembers(IdRange ids, long from, long to, AtomicLong progress) {
+        BatchWriter writer = new BatchWriter(progress);
+        for (long i = from; i < to; i++) {
+            writer.add(MEMBER_SQL, ids.member(i), "member" + ids.member(i), city(i), "street" + i, zipcode(i));
+            writer.rowDone();
+        }
+        writer.flush();
+    }
+
+    private void insertItems(IdRange ids, long from, long to, Random random, AtomicLong progress) {
+        BatchWriter writer = new BatchWriter(progress);
+        for (long i = from; i < to; i++) {
+            long id = ids.item(i);
+            int price = (1 + random.nextInt(100)) * 1000;
+            int stock = 1_000 + random.nextInt(100_000);
+            if (i % 10 == 0) {
+                writer.add(ITEM_SQL, id, "A", "album" + i, price, stock, null, null, "artist" + i % 1000, null, null, null);
+            } else if (i % 10 == 1) {
+                writer.add(ITEM_SQL, id, "M", "movie" + i, price, stock, null, null, null, null, "director" + i % 1000, "actor" + i % 1000);
+            } else {
+                writer.add(ITEM_SQL, id, "B", "book" + i, price, stock, "author" + i % 1000, "isbn" + i, null, null, null, null);
+            }
+            writer.add(CATEGORY_ITEM_SQL, ids.category(i % properties.getCategories()), id);
+            writer.rowDone();
+        }
+        writer.flush();
+    }
+
+    private void insertOrders(IdRange ids, long from, long to, Random random, AtomicLong progress) {
+        SkewedSampler members = new SkewedSampler(properties.getMembers(), properties.getMemberSkew());
+        SkewedSampler items = new SkewedSampler(properties.getItems(), properties.getItemSkew());
+        LocalDateTime now = LocalDateTime.now();
+        long period = properties.getDays() * 24L * 60 * 60;
+
+        BatchWriter writer = new BatchWriter(progress);
+        for (long i = from; i < to; i++) {
+            long orderId = ids.order(i);
+            long member = members.next(random);
+            boolean canceled = random.nextInt(100) < 5;
+            boolean delivered = !canceled && random.nextInt(100) < 30;
+
+            int lines = 1 + random.nextInt(properties.getMaxOrderItems());
+            Object[][] orderItems = new Object[lines][];
+            int totalPrice = 0;
+            for (int j = 0; j < lines; j++) {
+                int orderPrice = (1 + random.nextInt(100)) * 1000;
+                int count = 1 + random.nextInt(5);
+                orderItems[j] = new Object[]{ids.orderItem(i, j), orderId, ids.item(items.next(random)), orderPrice, count};
+                totalPrice += orderPrice * count;
+            }
+
+            // FK 순서: delivery -> orders -> order_item
+            writer.add(DELIVERY_SQL, ids.delivery(i), city(member), "street" + member, zipcode(member), delivered ? "COMP" : "READY");
+            writer.add(ORDER_SQL, orderId, ids.member(member), ids.delivery(i),
+                    Timestamp.valueOf(now.minusSeconds((long) (random.nextDouble() * period))), canceled ? "CANCEL" : "ORDER", totalPrice);
+            for (Object[] orderItem : orderItems) {
+                writer.add(ORDER_ITEM_SQL, orderItem);
+            }
+            writer.rowDone();
+        }
+        writer.flush();
+    }
+
+    // 10개씩 자식을 가지는 트리 - 부모가 항상 먼저 insert 된다.
+    private void insertCategories(IdRange ids) {
+        BatchWriter writer = new BatchWriter(new AtomicLong());
+        for (long i = 0; i < properties.getCategories(); i++) {
+            writer.add(CATEGORY_SQL, ids.category(i), "category" + i, i == 0 ? null : ids.category((i - 1) / 10));
+            writer.rowDone();
+        }
+        writer.flush();
+    }
+
+    /**
+     * [0, total) 을 스레드 수만큼 나눠서 동시에 생성하고 5초마다 진행률을 남긴다.
+     */
+    private void runPartitioned(ExecutorService executor, String name, long total, PartitionTask task) {
+        AtomicLong progress = new AtomicLong();
+        long start = System.currentTimeMillis();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> logProgress(name, progress.get(), total, start), 5, 5, TimeUnit.SECONDS);
+
+        int partitions = (int) Math.max(1, Math.min(properties.getThreads(), total));
+        long size = (total + partitions - 1) / partitions;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            long from = p * size;
+            long to = Math.min(total, from + size);
+            Random random = new Random(properties.getSeed() * 31 + name.hashCode() * 17L + p);
+            futures.add(executor.submit(() -> task.generate(from, to, random, progress)));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("데이터 생성이 중단되었습니다. " + name, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("데이터 생성에 실패했습니다. " + name, e.getCause());
+        } finally {
+            reporter.shutdownNow();
+        }
+        logProgress(name, progress.get(), total, start);
+    }
+
+    private void logProgress(String name, long done, long total, long start) {
+        long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+        log.info("[datagen] {} {}/{} ({}%) {} rows/s", name, done, total,
+                total == 0 ? 100 : done * 100 / total, done * 1000 / elapsed);
+    }
+
+    private long nextBaseId() {
+        long max = 0;
+        for (String sql : ID_TABLES) {
+            Long id = jdbcTemplate.queryForObject(sql, Long.class);
+            if (id != null) {
+                max = Math.max(max, id);
+            }
+        }
+        return max + SEQUENCE_GAP;
+    }
+
+    private static String city(long i) {
+        return "city" + i % 100;
+    }
+
+    private static String zipcode(long i) {
+        return String.valueOf(10000 + i % 90000);
+    }
+
+    private interface PartitionTask {
+        void generate(long from, long to, Random random, AtomicLong progress);
+    }
+
+    /**
+     * SQL 별로 row 를 모아서 batchSize 건마다 JDBC 배치로 보낸다. 먼저 추가된 SQL 부터 보내므로 FK 순서가 지켜진다.
+     */
+    private class BatchWriter {
+
+        private final AtomicLong progress;
+        private final Map<String, List<Object[]>> rows = new LinkedHashMap<>();
+        private int pending;
+
+        BatchWriter(AtomicLong progress) {
+            this.progress = progress;
+        }
+
+        void add(String sql, Object... args) {
+            rows.computeIfAbsent(sql, k -> new ArrayList<>()).add(args);
+        }
+
+        // 논리 row(회원 1명, 주문 1건 ...) 하나 완료
+        void rowDone() {
+            if (++pending >= properties.getBatchSize()) {
+                flush();
+            }
+        }
+
+        void flush() {
+            rows.forEach((sql, args) -> {
+                if (!args.isEmpty()) {
+                    jdbcTemplate.batchUpdate(sql, args);
+                    args.clear();
+                }
+            });
+            progress.addAndGet(pending);
+            pending = 0;
+        }
+    }
+
+    /**
+     * 테이블별 id 할당 - base 부터 회원, 상품, 카테고리, 주문(=배송), 주문상품 순으로 겹치지 않게 나눈다.
+     */
+    private static class IdRange {
+
+        private final long memberBase;
+        private final long itemBase;
+        private final long categoryBase;
+        private final long orderBase;
+        private final long orderItemBase;
+        private final int maxOrderItems;
+
+        IdRange(long base, DataGeneratorProperties properties) {
+            this.maxOrderItems = properties.getMaxOrderItems();
+            this.memberBase = base;
+            this.itemBase = memberBase + properties.getMembers();
+            this.categoryBase = itemBase + properties.getItems();
+            this.orderBase = categoryBase + properties.getCategories();
+            this.orderItemBase = orderBase + properties.getOrders();
+        }
+
+        long member(long i) { return memberBase + i; }
+        long item(long i) { return itemBase + i; }
+        long category(long i) { return categoryBase + i; }
+        long order(long i) { return orderBase + i; }
+        long delivery(long i) { return orderBase + i; }
+        long orderItem(long order, int line) { return orderItemBase + order * maxOrderItems + line; }
+    }
+}
@@ -0,0 +1,32 @@
+package jpabook.jpashop.datagen;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 대량 테스트 데이터 생성 설정 (jpashop.datagen.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "jpashop.datagen")
+@Getter @Setter
+public class DataGeneratorProperties {
+
+    private long members = 100_000;
+    private long items = 10_000;
+    private long categories = 100;
+    private long orders = 1_000_000;
+    private int maxOrderItems = 3; // 주문 하나당 최대 주문상품 수
+    private int days = 365; // 주문 일시를 최근 며칠에 걸쳐 분포시킬지
+
+    /**
+     * 회원/상품 선택 쏠림 정도. 1.0 = 균등, 값이 클수록 앞쪽(인기) 회원/상품에 주문이 몰린다.
+     */
+    private double memberSkew = 1.5;
+    private double itemSkew = 3.0;
+
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int batchSize = 1_000; // JDBC 배치 크기 = 커밋 단위
+    private long seed = 42L; // 같은 설정이면 같은 데이터
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.datagen;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * datagen 프로필로 실행했을 때만 대량 데이터를 생성한다.
+ * ex) java -jar jpashop.jar --spring.profiles.active=datagen --jpashop.datagen.orders=5000000
+ */
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+public class DataGeneratorRunner implements ApplicationRunner {
+
+    private final BulkDataGenerator bulkDataGenerator;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        bulkDataGenerator.generate();
+    }
+}
@@ -0,0 +1,26 @@
+package jpabook.jpashop.datagen;
+
+import java.util.Random;
+
+/**
+ * 0 ~ size-1 범위에서 앞쪽 값이 더 자주 뽑히는 샘플러
+ * u(0~1 균등) ^ skew 를 쓰면 skew 가 1 이면 균등, 클수록 0 근처에 몰린다. (실제 인기 상품/헤비 유저 분포 흉내)
+ */
+class SkewedSampler {
+
+    private final long size;
+    private final double skew;
+
+    SkewedSampler(long size, double skew) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive. size=" + size);
+        }
+        this.size = size;
+        this.skew = Math.max(skew, 1.0);
+    }
+
+    long next(Random random) {
+        long index = (long) (Math.pow(random.nextDouble(), skew) * size);
+        return Math.min(index, size - 1);
+    }
+}
@@ -0,0 +1,86 @@
+package jpabook.jpashop.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * replica 지연 감시 - heartbeat
+ * 주기적으로 primary 의 replication_heartbeat 에 현재 시각을 쓰고, replica 에 복제된 값과 비교해서 지연을 잰다.
+ * replica 에 접속이 안되거나 지연이 maxLag 보다 크면 replica 를 쓰지 않는다.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMillis;
+
+    private volatile boolean replicaAvailable;
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMillis) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public void init() {
+        if (maxLagMillis > 0) {
+            primary.execute("create table if not exists replication_heartbeat (id int primary key, beat_millis bigint not null)");
+        }
+        check();
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.datasource.replica.check-interval:1000}")
+    public synchronized void check() {
+        long now = System.currentTimeMillis();
+        boolean available;
+        try {
+            if (maxLagMillis > 0) {
+                writeHeartbeat(now);
+                Long beat = replica.queryForObject("select beat_millis from replication_heartbeat where id = 1", Long.class);
+                lagMillis = beat == null ? -1 : now - beat;
+                available = beat != null && lagMillis <= maxLagMillis;
+            } else {
+                replica.queryForObject("select 1", Integer.class);
+                lagMillis = 0;
+                available = true;
+            }
+        } catch (DataAccessException e) {
+            log.debug("replica check failed", e);
+            lagMillis = -1;
+            available = false;
+        }
+
+        if (available != replicaAvailable) {
+            if (available) {
+                log.info("replica available. lag={}ms", lagMillis);
+            } else {
+                log.warn("replica unavailable, reading from primary. lag={}ms, maxLag={}ms", lagMillis, maxLagMillis);
+            }
+        }
+        replicaAvailable = available;
+    }
+
+    public boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    private void writeHeartbeat(long now) {
+        try {
+            if (primary.update("update replication_heartbeat set beat_millis = ? where id = 1", now) == 0) {
+                primary.update("insert into replication_heartbeat (id, beat_millis) values (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("heartbeat write to primary failed", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 읽기 전용 replica 설정 (jpashop.datasource.replica.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "jpashop.datasource.replica")
+@Getter @Setter
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+    private String url;
+    private String username = "sa";
+    private String password = "";
+    private int maximumPoolSize = 10;
+
+    /**
+     * 허용 지연 (ms) - heartbeat 기준으로 replica 가 이보다 뒤처지면 읽기도 primary 로 보낸다.
+     * 0 이면 지연은 보지 않고 replica 에 접속되는지만 확인한다.
+     */
+    private long maxLag = 5_000;
+    private long checkInterval = 1_000; // 지연 확인 주기 (ms)
+}
@@ -0,0 +1,97 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 읽기/쓰기 분리 (jpashop.datasource.replica.enabled=true)
+ * primary = spring.datasource.*, replica = jpashop.datasource.replica.*
+ * 서비스 클래스에 걸린 @Transactional(readOnly = true) 조회는 replica 로, 쓰기 메서드는 primary 로 간다.
+ * 스프링 부트 기본 DataSource 대신 라우팅 DataSource 하나만 빈으로 등록한다. (두 풀은 이 설정이 닫는다)
+ * 커넥션은 트랜잭션이 끝나면 돌려준다. OSIV 로 EntityManager 가 요청 내내 열려 있어도
+ * 트랜잭션마다 다시 라우팅된다. (readOnly 조회 뒤 쓰기가 replica 커넥션을 물려받지 않는다)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "jpashop.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig implements DisposableBean {
+
+    private HikariDataSource primary;
+    private HikariDataSource replica;
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(DataSourceProperties dataSourceProperties, ReplicaProperties replicaProperties,
+                                               Environment environment) {
+        primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // 기본 DataSource 와 같은 풀 설정 (spring.datasource.hikari.*)
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(dataSourceProperties.determineDriverClassName())
+                .url(replicaProperties.getUrl())
+                .username(replicaProperties.getUsername())
+                .password(replicaProperties.getPassword())
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(replicaProperties.getMaximumPoolSize());
+        replica.setReadOnly(true);
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(primary, replica, replicaProperties.getMaxLag());
+        monitor.init();
+        log.info("read/write routing enabled. replica={}, available={}", replicaProperties.getUrl(), monitor.isReplicaAvailable());
+        return monitor;
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaLagMonitor replicaLagMonitor) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(RoutingDataSource.PRIMARY, primary);
+        targets.put(RoutingDataSource.REPLICA, replica);
+
+        RoutingDataSource routing = new RoutingDataSource(replicaLagMonitor);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        // 실제 커넥션은 첫 SQL 실행 시점에 얻는다. -> 그때는 트랜잭션의 readOnly 여부가 정해져 있다.
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    // 기본값(DELAYED_ACQUISITION_AND_HOLD)은 EntityManager 가 닫힐 때까지 처음 얻은 커넥션을 잡고 있다.
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Override
+    public void destroy() {
+        if (replica != null) {
+            replica.close();
+        }
+        if (primary != null) {
+            primary.close();
+        }
+    }
+}
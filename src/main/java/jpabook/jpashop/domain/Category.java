@@ -1,20 +1,29 @@
 package jpabook.jpashop.domain;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.sequence.TunableSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category") // 2차 캐시
 @Getter
 @Setter
 public class Category {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "category_seq_generator")
+    @GenericGenerator(name = "category_seq_generator", strategy = TunableSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "category_seq"))
     @Column(name = "category_id")
     private Long id;
 
@@ -31,12 +40,18 @@ public class Category {
     @JoinColumn(name = "parent_id")
     private Category parent;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category.child") // 하위 카테고리 id 목록도 캐시
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
     // order에 설명 적어 놓음
     //==연관관계 메서드==//
+    // 다른 부모 밑에 있던 카테고리면 예전 부모의 child 에서 빼고 옮긴다.
+    // 클로저 테이블(CategoryClosure)은 CategoryService 에서 같이 갱신한다.
     public void addChildCategory(Category child) {
+        if (child.getParent() != null) {
+            child.getParent().getChild().remove(child);
+        }
         this.child.add(child);
         child.setParent(this);
     }
@@ -0,0 +1,40 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * 카테고리 클로저 테이블 - 조상/자손 쌍마다 한 row (자기 자신 포함, depth = 0)
+ * 하위 트리 전체를 재귀 없이 ancestor_id 한 조건으로 찾을 수 있다.
+ * row 는 CategoryRepository 의 SQL 로만 관리한다. (CategoryService 에서 카테고리 생성/이동 시)
+ */
+@Entity
+@Table(name = "category_closure",
+        indexes = @Index(name = "idx_category_closure_descendant", columnList = "descendant_id")) // 조상 찾기 (PK 는 ancestor_id 가 앞)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryClosure {
+
+    @EmbeddedId
+    private Id id;
+
+    private int depth; // 조상 -> 자손 거리
+
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    public static class Id implements Serializable {
+
+        @Column(name = "ancestor_id")
+        private Long ancestorId;
+
+        @Column(name = "descendant_id")
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 일별 도시별 매출 집계 - 배송 주소(Address.city) 기준, 취소되지 않은 주문만
+ * row 는 AnalyticsRepository 의 SQL 로만 관리한다.
+ */
+@Entity
+@Table(name = "daily_city_sales")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailyCitySales {
+
+    @EmbeddedId
+    private Id id;
+
+    private long orderCount;
+    private long revenue;
+
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    public static class Id implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        private String city; // 주소가 없으면 ''
+    }
+}
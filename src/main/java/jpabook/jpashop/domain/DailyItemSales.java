@@ -0,0 +1,42 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 일별 상품 판매 집계 - 취소되지 않은 주문만
+ * row 는 AnalyticsRepository 의 SQL 로만 관리한다.
+ */
+@Entity
+@Table(name = "daily_item_sales",
+        indexes = @Index(name = "idx_daily_item_sales_item", columnList = "item_id")) // 상품별 기간 조회 (PK 는 sales_date 가 앞)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailyItemSales {
+
+    @EmbeddedId
+    private Id id;
+
+    private long orderCount;
+    private long quantity;
+    private long revenue;
+
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    public static class Id implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Column(name = "item_id")
+        private Long itemId;
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 일별 주문 집계 - 주문 일자, 주문 상태별 주문 수/금액
+ * row 는 AnalyticsRepository 의 SQL 로만 관리한다. (DailyRollupRefresher 가 변경된 날짜만 다시 계산)
+ */
+@Entity
+@Table(name = "daily_order_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DailyOrderStats {
+
+    @EmbeddedId
+    private Id id;
+
+    private long orderCount;
+    private long revenue; // 주문 금액 합계 (취소 주문은 취소된 금액)
+
+    private LocalDateTime refreshedAt; // 다시 계산한 시각 - 가장 최근 값이 다음 갱신의 기준
+
+    @Embeddable
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    public static class Id implements Serializable {
+
+        @Column(name = "sales_date")
+        private LocalDate salesDate;
+
+        @Enumerated(EnumType.STRING)
+        private OrderStatus status;
+    }
+}
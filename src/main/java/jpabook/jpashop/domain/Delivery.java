@@ -1,16 +1,23 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.sequence.TunableSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = @Index(name = "idx_delivery_status_id", columnList = "status, delivery_id")) // 상태별 배송 목록 (keyset), 상태별 건수
 @Getter @Setter
 public class Delivery {
     
-    @Id @GeneratedValue
+    @Id
+    @GeneratedValue(generator = "delivery_seq_generator")
+    @GenericGenerator(name = "delivery_seq_generator", strategy = TunableSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "delivery_seq"))
     @Column(name = "delivery_id")
     private Long id;
 
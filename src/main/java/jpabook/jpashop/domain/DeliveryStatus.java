@@ -1,5 +1,13 @@
 package jpabook.jpashop.domain;
 
 public enum DeliveryStatus {
-    READY, COMP
+    READY, COMP;
+
+    /**
+     * 배송 상태는 앞으로만 바뀐다. (READY -> COMP) 같은 상태로 다시 바꾸거나 되돌릴 수 없다.
+     * 상태가 없는(null) 예전 배송은 READY 로 본다.
+     */
+    public static boolean canMove(DeliveryStatus from, DeliveryStatus to) {
+        return (from == null ? READY : from).ordinal() < to.ordinal();
+    }
 }
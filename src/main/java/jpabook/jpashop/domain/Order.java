@@ -1,23 +1,33 @@
 package jpabook.jpashop.domain;
 
+import jpabook.jpashop.sequence.TunableSequenceGenerator;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Entity
-@Table(name = "orders") // 테이블명 설정
+@Table(name = "orders", // 테이블명 설정
+        indexes = {
+                @Index(name = "idx_orders_order_date_id", columnList = "orderDate, order_id"), // 주문 keyset 페이징용 인덱스
+                @Index(name = "idx_orders_total_price", columnList = "totalPrice") // 주문 금액 검색/정렬
+        })
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 다른곳에서 생성자 못쓰도록 막아둠
 public class Order {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "orders_seq_generator")
+    @GenericGenerator(name = "orders_seq_generator", strategy = TunableSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "orders_seq")) // 시퀀스를 블록 단위로 미리 할당 (pooled) -> insert 마다 시퀀스 조회 안함, 크기는 jpashop.sequence.*
     @Column(name = "order_id")
     private Long id;
 
@@ -47,6 +57,10 @@ public class Order {
     @Enumerated(EnumType.STRING) // EnumType.ORDINAL은 숫자로 들어감 사용하지 말 것.
     private OrderStatus status; // 주문상태 [ORDER, CANCEL]
 
+    // 전체 주문 가격 (역정규화) - 주문상품이 추가될 때 같이 갱신된다. 목록 조회/정렬 시 orderItems 를 읽지 않아도 된다.
+    @Setter(AccessLevel.NONE)
+    private int totalPrice;
+
     //==연관관계 편의 메서드==//
     // 컨트롤 하는쪽이 들고있는게 좋다.
     // 양방향일 때 사용하면 좋다 - 양쪽에 세팅해야하는 것을 원자적으로 한번에 세팅한다.
@@ -65,6 +79,7 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        this.totalPrice += orderItem.getTotalPrice();
     }
 
     public void setDelivery(Delivery delivery) {
@@ -82,6 +97,9 @@ public class Order {
         }
         order.setStatus(OrderStatus.ORDER);
         order.setOrderDate(LocalDateTime.now());
+        if (delivery.getStatus() == null) {
+            delivery.setStatus(DeliveryStatus.READY); // 배송 준비
+        }
         return order;
     }
 //    생성 메서드( createOrder() ): 주문 엔티티를 생성할 때 사용한다.
@@ -92,23 +110,38 @@ public class Order {
      * 주문 취소
      */
     public void cancel(){
+        cancel(OrderItem::cancel);
+    }
+
+    /**
+     * 주문 취소 - 재고 원복 방법을 외부에서 지정 (재고 예약 원장을 쓰는 경우 StockService 에서 사용)
+     */
+    public void cancel(Consumer<OrderItem> restock){
         if(delivery.getStatus() == DeliveryStatus.COMP){
             throw new IllegalStateException("이미 배송 완료된 상품은 취소가 불가능합니다.");
         }
         
         this.setStatus(OrderStatus.CANCEL);
         for (OrderItem orderItem : orderItems) { // 각각 아이템에 캔슬 날려준다
-            orderItem.cancel();
+            restock.accept(orderItem);
         }
+        this.totalPrice = calculateTotalPrice(); // 이미 orderItems 를 읽었으므로 주문 금액도 주문상품 기준으로 다시 맞춰둔다. (취소해도 주문 금액은 유지)
     }
 //    주문 취소( cancel() ): 주문 취소시 사용한다. 주문 상태를 취소로 변경하고 주문상품에 주문 취소를 알린다.
 //    만약 이미 배송을 완료한 상품이면 주문을 취소하지 못하도록 예외를 발생시킨다.
 
     //==조회 로직==//
     /**
-     * 전체 주문 가격 조회
+     * 전체 주문 가격 조회 - 저장된 값을 반환하므로 orderItems 지연 로딩이 일어나지 않는다.
      */
     public int getTotalPrice(){
+        return totalPrice;
+    }
+
+    /**
+     * 주문상품으로 전체 주문 가격 계산
+     */
+    public int calculateTotalPrice(){
         int totalPrice = 0;
         for (OrderItem orderItem : orderItems) {
             totalPrice += orderItem.getTotalPrice();
@@ -122,4 +155,5 @@ public class Order {
 //    전체 주문 가격 조회: 주문 시 사용한 전체 주문 가격을 조회한다.
 //    전체 주문 가격을 알려면 각각의 주문상품가격을 알아야 한다.
 //    로직을 보면 연관된 주문상품들의 가격을 조회해서 더한 값을 반환한다.(실무에서는주로 주문에 전체 주문 가격 필드를 두고 역정규화 한다.)
+//    -> totalPrice 필드로 역정규화 함. 기존 데이터는 OrderTotalPriceBackfill 로 채운다.
 }
@@ -0,0 +1,67 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 조회 모델 (역정규화) - 주문 하나에 한 줄
+ * 목록/검색 API 가 orders, member, delivery 를 조인하지 않고 이 테이블 하나만 읽는다.
+ * 주문/취소/배송 상태 변경/회원 이름 변경 시 같은 트랜잭션에서 같이 갱신되고,
+ * JDBC 로 직접 넣은 주문 등은 OrderSummaryRebuilder 로 원본 테이블에서 다시 만든다.
+ */
+@Entity
+@Table(name = "order_summary",
+        indexes = {
+                @Index(name = "idx_order_summary_order_date_id", columnList = "orderDate, order_id"), // 목록 keyset 페이징
+                @Index(name = "idx_order_summary_member_id", columnList = "member_id"), // 회원 이름 검색, 회원 이름 변경
+                @Index(name = "idx_order_summary_updated_at", columnList = "updatedAt") // 변경된 주문 일자 찾기 (DailyRollupRefresher)
+        })
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+
+    @Id
+    @Column(name = "order_id")
+    private Long id; // 주문 id 를 그대로 사용
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    private String memberName;
+
+    @Embedded
+    private Address address; // 배송 주소
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
+
+    private LocalDateTime orderDate;
+
+    private int lineCount; // 주문상품 수
+    private int totalPrice;
+
+    private LocalDateTime updatedAt; // 주문 추가/취소(+ 재생성) 시각 - 일별 집계(rollup)를 다시 계산할 날짜를 찾는다. 배송 상태, 회원 이름 변경은 집계에 쓰이지 않으므로 바꾸지 않는다.
+
+    //==생성 메서드==//
+    public static OrderSummary of(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.id = order.getId();
+        summary.memberId = order.getMember().getId();
+        summary.memberName = order.getMember().getName();
+        summary.address = order.getDelivery().getAddress();
+        summary.status = order.getStatus();
+        summary.deliveryStatus = order.getDelivery().getStatus();
+        summary.orderDate = order.getOrderDate();
+        summary.lineCount = order.getOrderItems().size();
+        summary.totalPrice = order.getTotalPrice();
+        summary.updatedAt = LocalDateTime.now();
+        return summary;
+    }
+}
@@ -0,0 +1,63 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 비동기 주문 처리 결과 - 접수 로그(OrderLog)의 ticket 이 id
+ * 주문과 같은 트랜잭션에서 저장되므로 ticket 이 있으면 처리가 끝난 주문이다. (재기동 후 로그를 다시 읽어도 중복 주문하지 않는다)
+ * 아직 처리 전인 주문은 row 가 없고 QUEUED 로 보여준다.
+ */
+@Entity
+@Table(name = "order_ticket")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderTicket {
+
+    private static final int MAX_MESSAGE_LENGTH = 255;
+
+    @Id
+    @Column(name = "ticket")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private OrderTicketStatus status;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    private String message; // 실패 사유
+
+    private LocalDateTime acceptedAt;
+    private LocalDateTime processedAt;
+
+    //==생성 메서드==//
+    public static OrderTicket queued(Long ticket, LocalDateTime acceptedAt) {
+        return create(ticket, OrderTicketStatus.QUEUED, null, null, acceptedAt);
+    }
+
+    public static OrderTicket ordered(Long ticket, Long orderId, LocalDateTime acceptedAt) {
+        return create(ticket, OrderTicketStatus.ORDERED, orderId, null, acceptedAt);
+    }
+
+    public static OrderTicket failed(Long ticket, String message, LocalDateTime acceptedAt) {
+        return create(ticket, OrderTicketStatus.FAILED, null, message, acceptedAt);
+    }
+
+    private static OrderTicket create(Long ticket, OrderTicketStatus status, Long orderId, String message, LocalDateTime acceptedAt) {
+        OrderTicket orderTicket = new OrderTicket();
+        orderTicket.id = ticket;
+        orderTicket.status = status;
+        orderTicket.orderId = orderId;
+        orderTicket.message = message != null && message.length() > MAX_MESSAGE_LENGTH
+                ? message.substring(0, MAX_MESSAGE_LENGTH)
+                : message;
+        orderTicket.acceptedAt = acceptedAt;
+        orderTicket.processedAt = status == OrderTicketStatus.QUEUED ? null : LocalDateTime.now();
+        return orderTicket;
+    }
+}
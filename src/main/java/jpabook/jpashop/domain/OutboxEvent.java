@@ -0,0 +1,63 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.sequence.TunableSequenceGenerator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 트랜잭셔널 아웃박스 - 주문/재고/상품 변경 이벤트
+ * 변경과 같은 트랜잭션에서 insert 되므로 커밋된 변경에는 반드시 이벤트가 있고, 롤백되면 이벤트도 없다.
+ * OutboxRelay 가 꺼낼 때 publishSeq 를 매기고 OutboxSink 로 내보낸 뒤 publishedAt 을 남긴다. 지우는 것은 보관 기간(retention)이 지난 뒤다.
+ * 소비하는 쪽은 publishSeq 를 offset 으로 쓴다. (/api/v1/changes?after={마지막으로 받은 publishSeq}) - 재기동해도 offset 이 바뀌지 않는다.
+ * id 는 insert 시점(pooled 블록은 그보다 먼저)에 정해지므로 작은 id 가 나중에 커밋될 수 있다. -> id 는 offset 으로 쓰지 않는다.
+ * publishSeq 는 리스를 잡은 릴레이 하나가 커밋되어 보이는 이벤트에만 순서대로 매기므로, 이미 받은 offset 보다 작은 값이 나중에 생기지 않는다.
+ */
+@Entity
+@Table(name = "outbox_event",
+        indexes = {
+                @Index(name = "idx_outbox_event_published_at", columnList = "publishedAt"), // 내보낼 이벤트, 보관 기간 지난 이벤트
+                @Index(name = "uk_outbox_event_publish_seq", columnList = "publishSeq", unique = true)}) // /api/v1/changes 범위 조회
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = "outbox_event_seq_generator")
+    @GenericGenerator(name = "outbox_event_seq_generator", strategy = TunableSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "outbox_event_seq"))
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    private String aggregateType; // Order, Item
+    private Long aggregateId;
+    private String eventType; // ORDER_PLACED, ORDER_CANCELLED, ITEM_CREATED, ITEM_UPDATED, STOCK_CHANGED
+
+    @Lob
+    private String payload; // JSON - 주문 상품 수만큼 길어진다.
+
+    private LocalDateTime createdAt;
+    private Long publishSeq; // 릴레이가 꺼낼 때 매기는 offset - null 이면 아직 꺼내지 않음
+    private LocalDateTime publishedAt; // null 이면 아직 내보내지 않음
+
+    //==생성 메서드==//
+    public static OutboxEvent create(String aggregateType, Long aggregateId, String eventType, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.aggregateType = aggregateType;
+        event.aggregateId = aggregateId;
+        event.eventType = eventType;
+        event.payload = payload;
+        event.createdAt = LocalDateTime.now();
+        return event;
+    }
+
+    //==비즈니스 로직==//
+    public void assignPublishSeq(long publishSeq) {
+        this.publishSeq = publishSeq;
+    }
+}
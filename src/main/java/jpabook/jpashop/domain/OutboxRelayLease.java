@@ -0,0 +1,50 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 아웃박스 릴레이 리스 - 인스턴스가 여럿이어도 리스를 잡은 하나만 이벤트를 내보낸다.
+ * 리스를 가진 인스턴스가 expiresAt 전에 갱신하지 못하면(종료, 장애) 다른 인스턴스가 가져간다.
+ * 마지막으로 매긴 publishSeq 도 여기에 둔다. - 보관 기간이 지나 outbox_event 가 모두 지워져도 offset 이 다시 0 부터 시작하지 않는다.
+ */
+@Entity
+@Table(name = "outbox_relay_lease")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxRelayLease {
+
+    @Id
+    private String name;
+
+    private String owner; // 인스턴스마다 기동 시 만든 id
+
+    private LocalDateTime expiresAt;
+
+    private long lastPublishSeq;
+
+    //==생성 메서드==//
+    public static OutboxRelayLease create(String name, String owner, LocalDateTime expiresAt) {
+        OutboxRelayLease lease = new OutboxRelayLease();
+        lease.name = name;
+        lease.owner = owner;
+        lease.expiresAt = expiresAt;
+        return lease;
+    }
+
+    //==비즈니스 로직==//
+    /**
+     * count 개의 publishSeq 를 예약하고 첫번째 값을 돌려준다.
+     */
+    public long reservePublishSeq(int count) {
+        long first = lastPublishSeq + 1;
+        lastPublishSeq += count;
+        return first;
+    }
+}
@@ -2,8 +2,13 @@ package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.sequence.TunableSequenceGenerator;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -12,11 +17,15 @@ import java.util.List;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE) // 전략 설정: 한 테이블에 다 때려박는거
 @DiscriminatorColumn(name = "dtype") // 상속관계 맵핑
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item") // 2차 캐시 - Book/Album/Movie 도 같은 region 사용
 @Getter @Setter
 public abstract class Item {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(generator = "item_seq_generator")
+    @GenericGenerator(name = "item_seq_generator", strategy = TunableSequenceGenerator.STRATEGY,
+            parameters = @Parameter(name = "sequence_name", value = "item_seq"))
     @Column(name = "item_id")
     private Long id;
     
@@ -24,6 +33,9 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    @Version // 낙관적 락 - 동시에 같은 상품 재고를 변경하면 나중에 커밋하는 쪽이 실패한다.
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
@@ -45,7 +57,7 @@ public abstract class Item {
         if(restStock < 0){
             throw new NotEnoughStockException("need more stock");
         }
-
+        this.stockQuantity = restStock;
     }
     //비즈니스 로직 분석
     //addStock() 메서드는 파라미터로 넘어온 수만큼 재고를 늘린다. 이 메서드는 재고가 증가하거나 상품 주문을 취소해서 재고를 다시 늘려야 할 때 사용한다.
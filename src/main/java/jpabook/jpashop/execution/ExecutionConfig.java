@@ -0,0 +1,67 @@
+package jpabook.jpashop.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 요청 처리 스레드 모델 (jpashop.execution.mode)
+ * VIRTUAL 이면 톰캣 요청 처리와 MVC 비동기 작업(StreamingResponseBody)을 가상 스레드에서 실행한다.
+ * 컨트롤러 -> 서비스(@Transactional) -> JDBC 호출이 모두 같은 요청 스레드에서 실행되므로 서비스도 가상 스레드에서 돈다.
+ * 실행: ./gradlew bootRun -Pjdk21 --args='--jpashop.execution.mode=VIRTUAL'
+ */
+@Slf4j
+@Configuration
+public class ExecutionConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "jpashop.execution.mode", havingValue = "VIRTUAL")
+    public ExecutorService virtualThreadRequestExecutor() {
+        log.info("request execution mode: VIRTUAL");
+        return VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "jpashop.execution.mode", havingValue = "VIRTUAL")
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadRequestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadRequestExecutor);
+    }
+
+    // 이름이 applicationTaskExecutor 이면 스프링 부트 기본 풀 대신 MVC 비동기 처리에 쓰인다.
+    @Bean(name = "applicationTaskExecutor")
+    @ConditionalOnProperty(name = "jpashop.execution.mode", havingValue = "VIRTUAL")
+    public AsyncTaskExecutor virtualThreadTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newThreadPerTaskExecutor("task-vt-"));
+    }
+
+    /**
+     * DB 동시 사용 제한 - jpashop.execution.db-concurrency-limit (0 이면 사용 안함)
+     * 커넥션 풀 크기(spring.datasource.hikari.maximum-pool-size)와 같게 두면 풀 대기열 대신 여기서 기다린다.
+     * 기본은 끈다. 스레드 수가 풀 크기로 묶이는 PLATFORM 모드에서는 풀 대기열(connection-timeout)로 충분하다.
+     * 읽기/쓰기 분리(ReplicaRoutingConfig)를 켜면 라우팅 DataSource 하나를 감싸므로 한도는 primary + replica 합계다.
+     */
+    @Bean
+    public static BeanPostProcessor dbConcurrencyLimiter(
+            @Value("${jpashop.execution.db-concurrency-limit:0}") int limit,
+            @Value("${jpashop.execution.db-acquire-timeout:3000}") long acquireTimeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (limit > 0 && bean instanceof DataSource && !(bean instanceof ConcurrencyLimitedDataSource)) {
+                    log.info("db concurrency limit={} ({})", limit, beanName);
+                    return new ConcurrencyLimitedDataSource((DataSource) bean, limit, acquireTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
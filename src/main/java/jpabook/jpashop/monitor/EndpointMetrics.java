@@ -0,0 +1,104 @@
+package jpabook.jpashop.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 엔드포인트별 요청 지표 - 응답 시간, DB 시간, SQL 실행 수, 읽은 row 수, 엔티티 로딩 수, flush 수 히스토그램
+ * + 처리 중인 요청 수, Prometheus text format(0.0.4)으로 출력한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class EndpointMetrics {
+
+    private static final double[] SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    private static final double[] STATEMENTS = {1, 2, 3, 5, 10, 20, 50, 100, 200, 500};
+    private static final double[] ROWS = {1, 10, 100, 1000, 10000, 100000};
+    private static final double[] FLUSHES = {0, 1, 2, 5, 10};
+
+    private final QueryBudgetMetrics queryBudgetMetrics;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder(); // 엔드포인트는 요청이 끝나야 알 수 있으므로 전체 합계만
+
+    void requestStarted() {
+        inFlight.increment();
+    }
+
+    void requestFinished() {
+        inFlight.decrement();
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    void record(String endpoint, QueryContext context, long elapsedNanos) {
+        Endpoint metrics = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        metrics.latency.observe(toSeconds(elapsedNanos));
+        metrics.dbTime.observe(toSeconds(context.getStatementNanos()));
+        metrics.statements.observe(context.getStatementCount());
+        metrics.rows.observe(context.getRowCount());
+        metrics.entityLoads.observe(context.getEntityLoadCount());
+        metrics.collectionLoads.observe(context.getCollectionLoadCount());
+        metrics.flushes.observe(context.getFlushCount());
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder();
+        histogram(out, "jpashop_http_request_seconds", "요청 처리 시간(뷰 렌더링 포함)", e -> e.latency);
+        histogram(out, "jpashop_db_seconds", "요청당 SQL 실행 + ResultSet 읽기 시간", e -> e.dbTime);
+        histogram(out, "jpashop_db_statements", "요청당 SQL 실행 수", e -> e.statements);
+        histogram(out, "jpashop_db_rows", "요청당 ResultSet 에서 읽은 row 수", e -> e.rows);
+        histogram(out, "jpashop_hibernate_entity_loads", "요청당 엔티티 로딩 수", e -> e.entityLoads);
+        histogram(out, "jpashop_hibernate_collection_loads", "요청당 컬렉션 로딩 수", e -> e.collectionLoads);
+        histogram(out, "jpashop_hibernate_flushes", "요청당 flush 수", e -> e.flushes);
+        counter(out, "jpashop_query_budget_exceeded_total", "@QueryBudget 초과 횟수", queryBudgetMetrics.getBudgetExceeded());
+        counter(out, "jpashop_n_plus_one_suspected_total", "N+1 의심 횟수", queryBudgetMetrics.getNPlusOneSuspected());
+        gauge(out, "jpashop_http_requests_in_flight", "처리 중인 요청 수", getInFlight());
+        return out.toString();
+    }
+
+    private void histogram(StringBuilder out, String name, String help, Function<Endpoint, Histogram> histogram) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        endpoints.forEach((endpoint, metrics) -> histogram.apply(metrics).writeTo(out, name, label(endpoint)));
+    }
+
+    private void counter(StringBuilder out, String name, String help, Map<String, LongAdder> values) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        values.forEach((endpoint, value) -> out.append(name).append('{').append(label(endpoint)).append("} ")
+                .append(value.sum()).append('\n'));
+    }
+
+    private void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String label(String endpoint) {
+        return "endpoint=\"" + endpoint.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static double toSeconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static class Endpoint {
+        private final Histogram latency = new Histogram(SECONDS);
+        private final Histogram dbTime = new Histogram(SECONDS);
+        private final Histogram statements = new Histogram(STATEMENTS);
+        private final Histogram rows = new Histogram(ROWS);
+        private final Histogram entityLoads = new Histogram(ROWS);
+        private final Histogram collectionLoads = new Histogram(ROWS);
+        private final Histogram flushes = new Histogram(FLUSHES);
+    }
+}
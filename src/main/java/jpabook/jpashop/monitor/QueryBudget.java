@@ -0,0 +1,21 @@
+package jpabook.jpashop.monitor;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 요청 하나에서 실행할 수 있는 SQL 수(예산)
+ * 뷰 렌더링(OSIV 지연 로딩)까지 포함해서 센다. 예산을 넘거나 같은 모양의 SQL 이 반복되면(N+1 의심)
+ * 운영에서는 경고 로그 + 지표, 테스트(jpashop.query-budget.fail-on-violation=true)에서는 예외로 실패시킨다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /**
+     * 최대 SQL 실행 수
+     */
+    int value();
+}
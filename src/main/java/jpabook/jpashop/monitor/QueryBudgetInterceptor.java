@@ -0,0 +1,33 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 컨트롤러 메서드의 @QueryBudget 을 현재 요청의 QueryContext 에 넘겨주고, 지표에 쓸 엔드포인트 이름(GET /orders)을 남긴다.
+ * 검사와 기록은 RequestMonitorFilter 에서 뷰 렌더링 후에 한다.
+ */
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    static final String ENDPOINT_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".endpoint";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            // URL 그대로 쓰면 경로 변수마다 따로 집계되므로 매핑 패턴(/orders/{orderId}/cancel)을 쓴다.
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            request.setAttribute(ENDPOINT_ATTRIBUTE, request.getMethod() + " " + pattern);
+
+            QueryBudget budget = ((HandlerMethod) handler).getMethodAnnotation(QueryBudget.class);
+            QueryContext context = QueryContext.current();
+            if (budget != null && context != null) {
+                context.setBudget(budget.value());
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트별 SQL 예산 초과 / N+1 의심 횟수
+ */
+@Component
+public class QueryBudgetMetrics {
+
+    private final Map<String, LongAdder> budgetExceeded = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> nPlusOneSuspected = new ConcurrentHashMap<>();
+
+    void budgetExceeded(String endpoint) {
+        budgetExceeded.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+    }
+
+    void nPlusOneSuspected(String endpoint) {
+        nPlusOneSuspected.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+    }
+
+    public Map<String, LongAdder> getBudgetExceeded() {
+        return budgetExceeded;
+    }
+
+    public Map<String, LongAdder> getNPlusOneSuspected() {
+        return nPlusOneSuspected;
+    }
+}
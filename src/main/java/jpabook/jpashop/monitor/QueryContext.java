@@ -0,0 +1,99 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 요청(스레드) 단위 DB 사용 기록
+ * SQL 모양(shape)별 실행 횟수, DB 시간, 읽은 row 수(p6spy) + 엔티티/컬렉션 로딩, flush 횟수(하이버네이트 통계)
+ * 비동기 요청(StreamingResponseBody)은 같은 기록을 비동기 스레드, async 디스패치 스레드에 차례로 다시 묶는다. (bind)
+ * 동시에 두 스레드가 쓰지 않으므로 동기화하지 않는다.
+ */
+@Getter
+public class QueryContext {
+
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int statementCount;
+    private long statementNanos;
+    private long rowCount;
+    private long entityLoadCount;
+    private long collectionLoadCount;
+    private long flushCount;
+    private Integer budget;
+
+    public static QueryContext start() {
+        QueryContext context = new QueryContext();
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static QueryContext current() {
+        return CURRENT.get();
+    }
+
+    static void bind(QueryContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    void record(String sql, long elapsedNanos) {
+        statementCount++;
+        statementNanos += elapsedNanos;
+        shapes.merge(normalize(sql), 1, Integer::sum);
+    }
+
+    void addStatementNanos(long elapsedNanos) {
+        statementNanos += elapsedNanos;
+    }
+
+    void row() {
+        rowCount++;
+    }
+
+    void entityLoad() {
+        entityLoadCount++;
+    }
+
+    void collectionLoad() {
+        collectionLoadCount++;
+    }
+
+    void flush() {
+        flushCount++;
+    }
+
+    void setBudget(Integer budget) {
+        this.budget = budget;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * 값만 다른 SQL 을 같은 모양으로 본다. - 리터럴, IN 목록 길이(배치 페치), 공백 차이 제거
+     */
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim().toLowerCase();
+    }
+}
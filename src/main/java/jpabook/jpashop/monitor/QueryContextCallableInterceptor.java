@@ -0,0 +1,28 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * MVC 비동기 작업(StreamingResponseBody, Callable)을 실행하는 스레드에 요청의 QueryContext 를 묶는다.
+ * 스트리밍 응답의 SQL, row 수도 해당 엔드포인트의 지표와 SQL 예산에 들어간다.
+ * preProcess, postProcess 모두 비동기 스레드에서 호출된다. (postProcess 는 작업이 예외로 끝나도 호출)
+ */
+public class QueryContextCallableInterceptor implements CallableProcessingInterceptor {
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object context = request.getAttribute(RequestMonitorFilter.CONTEXT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (context instanceof QueryContext) {
+            QueryContext.bind((QueryContext) context);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        QueryContext.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package jpabook.jpashop.monitor;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 로 감싼 datasource 에서 실행되는 모든 SQL 을 현재 요청의 QueryContext 에 기록한다.
+ * p6spy-spring-boot-starter 가 JdbcEventListener 빈을 자동으로 등록해준다.
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.record(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+
+    /**
+     * ResultSet 을 읽는 시간도 DB 시간에 포함하고, 읽은 row 수를 센다.
+     */
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.addStatementNanos(timeElapsedNanos);
+            if (hasNext) {
+                context.row();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package jpabook.jpashop.monitor;
+
+import jpabook.jpashop.exception.QueryBudgetExceededException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 요청 단위 DB 사용 측정 범위 - 뷰 렌더링까지 끝난 뒤에
+ * 엔드포인트별 지표를 기록하고, 예산 초과, N+1 의심(같은 모양 SQL 반복)을 검사한다.
+ * 비동기 요청(StreamingResponseBody)은 핸들러가 반환될 때가 아니라 async 디스패치에서 기록한다.
+ * 그 사이 비동기 스레드의 SQL 은 QueryContextCallableInterceptor 가 같은 QueryContext 에 묶어서 센다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestMonitorFilter extends OncePerRequestFilter {
+
+    static final String CONTEXT_ATTRIBUTE = RequestMonitorFilter.class.getName() + ".context";
+
+    private final QueryBudgetMetrics queryBudgetMetrics;
+    private final EndpointMetrics endpointMetrics;
+
+    @Value("${jpashop.query-budget.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold; // 같은 모양의 SQL 이 이 횟수 이상 실행되면 N+1 의심
+
+    @Value("${jpashop.query-budget.fail-on-violation:false}")
+    private boolean failOnViolation; // 테스트에서 true
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryContext context = (QueryContext) request.getAttribute(CONTEXT_ATTRIBUTE);
+        if (isAsyncDispatch(request) && context != null) {
+            QueryContext.bind(context); // 최초 요청에서 시작한 기록을 이어서 쓴다. (시작 시간, in-flight 포함)
+        } else {
+            context = QueryContext.start();
+            request.setAttribute(CONTEXT_ATTRIBUTE, context);
+            endpointMetrics.requestStarted();
+        }
+
+        boolean asyncStarted;
+        Object endpoint = null;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryContext.clear();
+
+            // 비동기 처리가 시작됐으면 아직 응답이 끝나지 않았다. -> async 디스패치에서 기록
+            asyncStarted = request.isAsyncStarted();
+            if (!asyncStarted) {
+                endpointMetrics.requestFinished();
+
+                // 컨트롤러로 매핑된 요청만 (정적 리소스 제외), 예외로 끝난 요청도 시간을 기록한다.
+                endpoint = request.getAttribute(QueryBudgetInterceptor.ENDPOINT_ATTRIBUTE);
+                if (endpoint != null) {
+                    endpointMetrics.record(endpoint.toString(), context, context.elapsedNanos());
+                }
+            }
+        }
+
+        if (!asyncStarted && endpoint != null) {
+            check(endpoint.toString(), context);
+        }
+    }
+
+    private void check(String endpoint, QueryContext context) {
+        StringBuilder violation = new StringBuilder();
+
+        if (context.getBudget() != null && context.getStatementCount() > context.getBudget()) {
+            queryBudgetMetrics.budgetExceeded(endpoint);
+            violation.append(String.format("SQL budget exceeded. endpoint=%s, budget=%d, executed=%d%n",
+                    endpoint, context.getBudget(), context.getStatementCount()));
+        }
+
+        List<Map.Entry<String, Integer>> repeated = context.getShapes().entrySet().stream()
+                .filter(e -> e.getValue() >= nPlusOneThreshold)
+                .collect(Collectors.toList());
+        if (!repeated.isEmpty()) {
+            queryBudgetMetrics.nPlusOneSuspected(endpoint);
+            violation.append(String.format("N+1 suspected. endpoint=%s%n", endpoint));
+            repeated.forEach(e -> violation.append(String.format("  %d x %s%n", e.getValue(), e.getKey())));
+        }
+
+        if (violation.length() == 0) {
+            return;
+        }
+        if (failOnViolation) {
+            throw new QueryBudgetExceededException(violation.toString());
+        }
+        log.warn(violation.toString());
+    }
+}
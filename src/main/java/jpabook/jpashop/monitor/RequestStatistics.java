@@ -0,0 +1,60 @@
+package jpabook.jpashop.monitor;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * 하이버네이트 전역 통계는 그대로 집계하면서, 현재 요청의 QueryContext 에도 엔티티/컬렉션 로딩, flush 를 기록한다.
+ * hibernate.generate_statistics: true 일 때만 호출된다.
+ */
+public class RequestStatistics extends StatisticsImpl {
+
+    public RequestStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    @Override
+    public void loadEntity(String entityName) {
+        super.loadEntity(entityName);
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.entityLoad();
+        }
+    }
+
+    @Override
+    public void fetchEntity(String entityName) {
+        super.fetchEntity(entityName);
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.entityLoad();
+        }
+    }
+
+    @Override
+    public void loadCollection(String role) {
+        super.loadCollection(role);
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.collectionLoad();
+        }
+    }
+
+    @Override
+    public void fetchCollection(String role) {
+        super.fetchCollection(role);
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.collectionLoad();
+        }
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.flush();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.monitor;
+
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 하이버네이트 통계 구현을 RequestStatistics 로 바꾼다. (hibernate.stats.factory)
+ */
+@Component
+public class RequestStatisticsCustomizer implements HibernatePropertiesCustomizer {
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.stats.factory", (StatisticsFactory) RequestStatistics::new);
+    }
+}
@@ -0,0 +1,68 @@
+package jpabook.jpashop.outbox;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 최근 이벤트 capacity 건을 메모리 링 버퍼에 들고 있는 sink - /api/v1/changes 가 DB 를 거치지 않고 응답한다.
+ * offset 은 publishSeq 다. 소비하는 쪽은 마지막으로 받은 publishSeq 이후를 요청한다.
+ * 버퍼가 after 이후를 모두 들고 있지 않으면(재기동, 밀려남, 다른 인스턴스가 릴레이) null 을 돌려주고 호출하는 쪽이 outbox_event 에서 읽는다.
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final OutboxMessage[] buffer;
+    private int start; // 가장 오래된 메시지 위치
+    private int size;
+    private long coveredAfter = -1; // 이 publishSeq 다음부터 내보낸 이벤트는 모두 버퍼에 있다. (-1: 아직 내보낸 것이 없음)
+
+    public InMemoryOutboxSink(int capacity) {
+        this.buffer = new OutboxMessage[Math.max(1, capacity)];
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxMessage> messages) {
+        for (OutboxMessage message : messages) {
+            if (coveredAfter < 0) {
+                coveredAfter = message.getPublishSeq() - 1;
+            }
+            if (size == buffer.length) {
+                coveredAfter = Math.max(coveredAfter, buffer[start].getPublishSeq());
+                buffer[start] = message;
+                start = (start + 1) % buffer.length;
+            } else {
+                buffer[(start + size) % buffer.length] = message;
+                size++;
+            }
+        }
+    }
+
+    /**
+     * after 다음 publishSeq 부터 최대 limit 건 - 버퍼로 답할 수 없으면 null
+     */
+    public synchronized Changes read(long after, int limit) {
+        if (coveredAfter < 0 || after < coveredAfter) {
+            return null;
+        }
+        List<OutboxMessage> messages = new ArrayList<>(Math.min(Math.max(limit, 1), size));
+        long next = after;
+        for (int i = 0; i < size && messages.size() < Math.max(limit, 1); i++) {
+            OutboxMessage message = buffer[(start + i) % buffer.length];
+            if (message.getPublishSeq() > after) {
+                messages.add(message);
+                next = Math.max(next, message.getPublishSeq());
+            }
+        }
+        return new Changes(messages, next, false);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Changes {
+        private final List<OutboxMessage> messages;
+        private final long next; // 다음 요청의 after (마지막으로 받은 publishSeq)
+        private final boolean truncated; // after 이후 이벤트 중 일부가 보관 기간이 지나 이미 지워짐
+    }
+}
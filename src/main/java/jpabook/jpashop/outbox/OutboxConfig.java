@@ -0,0 +1,30 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 기본 OutboxSink - jpashop.outbox.sink=file 이면 NDJSON 파일, 아니면 메모리
+ * 직접 만든 OutboxSink 빈이 있으면 그것을 쓴다.
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "jpashop.outbox", name = "sink", havingValue = "file")
+    public NdjsonFileOutboxSink ndjsonFileOutboxSink(OutboxProperties properties, ObjectMapper objectMapper) throws IOException {
+        return new NdjsonFileOutboxSink(Paths.get(properties.getFilePath()), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    public InMemoryOutboxSink inMemoryOutboxSink(OutboxProperties properties) {
+        return new InMemoryOutboxSink(properties.getMemoryCapacity());
+    }
+}
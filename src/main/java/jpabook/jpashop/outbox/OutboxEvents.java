@@ -0,0 +1,112 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 변경 이벤트를 아웃박스(outbox_event)에 기록한다.
+ * 변경한 트랜잭션 안에서만 호출할 수 있다. (MANDATORY - 트랜잭션 밖에서 호출하면 예외)
+ */
+@Component
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxEvents {
+
+    public static final String ORDER = "Order";
+    public static final String ITEM = "Item";
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 주문 + 주문 상품별 재고 차감
+     */
+    public void orderPlaced(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("memberId", order.getMember().getId());
+        payload.put("status", order.getStatus());
+        payload.put("orderDate", order.getOrderDate());
+        payload.put("totalPrice", order.getTotalPrice());
+        payload.put("items", order.getOrderItems().stream()
+                .map(OutboxEvents::lineOf)
+                .collect(Collectors.toList()));
+        record(ORDER, order.getId(), "ORDER_PLACED", payload);
+
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockChanged(orderItem.getItem().getId(), -orderItem.getCount(), order.getId());
+        }
+    }
+
+    /**
+     * 주문 취소 + 주문 상품별 재고 원복
+     */
+    public void orderCancelled(Order order) {
+        orderCancelled(order.getId());
+        for (OrderItem orderItem : order.getOrderItems()) {
+            stockChanged(orderItem.getItem().getId(), orderItem.getCount(), order.getId());
+        }
+    }
+
+    /**
+     * 대량 취소 - 재고 원복은 상품별로 합산(itemId -> 수량)해서 한 건씩
+     */
+    public void ordersCancelled(List<Long> orderIds, Map<Long, Integer> restocked) {
+        orderIds.forEach(this::orderCancelled);
+        restocked.forEach((itemId, count) -> stockChanged(itemId, count, null));
+    }
+
+    public void itemSaved(Item item, boolean created) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("itemId", item.getId());
+        payload.put("name", item.getName());
+        payload.put("price", item.getPrice());
+        record(ITEM, item.getId(), created ? "ITEM_CREATED" : "ITEM_UPDATED", payload);
+    }
+
+    private void orderCancelled(Long orderId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", orderId);
+        payload.put("status", OrderStatus.CANCEL);
+        record(ORDER, orderId, "ORDER_CANCELLED", payload);
+    }
+
+    private void stockChanged(Long itemId, int delta, Long orderId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("itemId", itemId);
+        payload.put("delta", delta);
+        payload.put("orderId", orderId);
+        record(ITEM, itemId, "STOCK_CHANGED", payload);
+    }
+
+    private static Map<String, Object> lineOf(OrderItem orderItem) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("itemId", orderItem.getItem().getId());
+        line.put("orderPrice", orderItem.getOrderPrice());
+        line.put("count", orderItem.getCount());
+        return line;
+    }
+
+    private void record(String aggregateType, Long aggregateId, String eventType, Map<String, Object> payload) {
+        try {
+            outboxRepository.save(OutboxEvent.create(aggregateType, aggregateId, eventType, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("이벤트를 JSON 으로 변환하지 못했습니다. eventType=" + eventType, e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jpabook.jpashop.domain.OutboxEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * OutboxSink 로 내보내는 이벤트 - payload 는 JSON 그대로 포함된다.
+ */
+@Getter
+@AllArgsConstructor
+public class OutboxMessage {
+
+    private final Long id;
+    private final Long publishSeq; // 소비하는 쪽 offset
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType;
+    private final LocalDateTime createdAt;
+
+    @JsonRawValue
+    private final String payload;
+
+    public static OutboxMessage of(OutboxEvent event) {
+        return new OutboxMessage(event.getId(), event.getPublishSeq(), event.getAggregateType(), event.getAggregateId(),
+                event.getEventType(), event.getCreatedAt(), event.getPayload());
+    }
+}
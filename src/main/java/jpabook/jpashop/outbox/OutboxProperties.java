@@ -0,0 +1,24 @@
+package jpabook.jpashop.outbox;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 아웃박스 릴레이 설정 (jpashop.outbox.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "jpashop.outbox")
+@Getter @Setter
+public class OutboxProperties {
+
+    private String sink = "memory"; // memory / file
+    private boolean relayEnabled = true; // 인스턴스가 여럿이어도 리스를 잡은 하나만 내보낸다.
+    private long leaseTimeout = 30_000; // ms - 리스를 가진 인스턴스가 이만큼 갱신하지 못하면 다른 인스턴스가 가져간다. (인스턴스 간 시계 차이보다 크게)
+    private long retention = 24 * 60 * 60 * 1000L; // ms - 내보낸 이벤트를 남겨 두는 기간 (소비자가 이 기간 안의 id 부터 다시 읽을 수 있다)
+    private int batchSize = 500; // 한 번에 내보내는 이벤트 수
+    private int maxBatchesPerRun = 20; // 한 주기에 최대 묶음 수 (밀려 있을 때)
+    private String filePath = "./outbox/events.ndjson";
+    private int memoryCapacity = 10_000;
+}
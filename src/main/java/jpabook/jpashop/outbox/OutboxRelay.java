@@ -0,0 +1,117 @@
+package jpabook.jpashop.outbox;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxRelayLease;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 아웃박스 릴레이 - 내보내지 않은 이벤트를 id 순서로 묶어 publishSeq 를 매기고 OutboxSink 로 내보낸 뒤 publishedAt 을 남긴다.
+ * 다른 시스템은 orders 테이블을 주기적으로 훑는 대신 sink 를 따라 읽는다. (primary 조회는 outbox_event 인덱스 범위 조회 하나)
+ * 내보내기는 트랜잭션 밖에서 한다. 내보낸 뒤 표시하기 전에 죽으면 같은 이벤트를 다시 내보낸다. (at-least-once)
+ * 내보내기가 실패하면 그 묶음에서 멈추고 다음 주기에 같은 이벤트부터 다시 시도하므로 순서는 유지된다.
+ * 인스턴스가 여럿이면 리스(outbox_relay_lease)를 잡은 하나만 내보낸다. 묶음마다 리스를 갱신한다.
+ * publishSeq 는 리스 row 의 lastPublishSeq 에서 예약한다. 커밋되어 보이는 이벤트에만 매기므로 늦게 커밋된 이벤트도 더 큰 offset 을 받는다.
+ * 내보낸 이벤트는 retention 동안 남겨 두고(소비자가 id 로 다시 읽을 수 있도록) 지난 것만 지운다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jpashop.outbox", name = "relay-enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private static final String LEASE = "outbox-relay";
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink outboxSink;
+    private final OutboxProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    private final String owner = UUID.randomUUID().toString();
+
+    @Scheduled(fixedDelayString = "${jpashop.outbox.relay-interval:200}")
+    public synchronized void relay() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            if (!acquireLease(transaction)) {
+                return;
+            }
+            List<OutboxMessage> messages = transaction.execute(status -> nextBatch());
+            if (messages == null) {
+                return; // 리스를 다른 인스턴스가 가져갔다.
+            }
+            if (messages.isEmpty()) {
+                purge(transaction);
+                return;
+            }
+
+            try {
+                outboxSink.publish(messages);
+            } catch (Exception e) {
+                log.warn("outbox publish failed, retry next time. events={}, firstSeq={}", messages.size(), messages.get(0).getPublishSeq(), e);
+                return;
+            }
+
+            List<Long> ids = messages.stream().map(OutboxMessage::getId).collect(Collectors.toList());
+            transaction.executeWithoutResult(status -> outboxRepository.markPublished(ids, LocalDateTime.now()));
+            log.debug("outbox relayed events={}", ids.size());
+
+            if (messages.size() < properties.getBatchSize()) {
+                purge(transaction);
+                return;
+            }
+        }
+    }
+
+    // 내보낼 묶음 - publishSeq 가 없는 이벤트에 매긴다. 리스를 잃었으면 null
+    private List<OutboxMessage> nextBatch() {
+        List<OutboxEvent> events = outboxRepository.findUnpublished(properties.getBatchSize());
+        List<OutboxEvent> unassigned = events.stream()
+                .filter(event -> event.getPublishSeq() == null)
+                .collect(Collectors.toList());
+        if (!unassigned.isEmpty()) {
+            OutboxRelayLease lease = outboxRepository.findLeaseForUpdate(LEASE);
+            if (lease == null || !owner.equals(lease.getOwner())) {
+                return null;
+            }
+            long publishSeq = lease.reservePublishSeq(unassigned.size());
+            for (OutboxEvent event : unassigned) {
+                event.assignPublishSeq(publishSeq++);
+            }
+        }
+        return events.stream().map(OutboxMessage::of).collect(Collectors.toList());
+    }
+
+    private boolean acquireLease(TransactionTemplate transaction) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            return Boolean.TRUE.equals(transaction.execute(status ->
+                    outboxRepository.acquireLease(LEASE, owner, now, now.plusNanos(properties.getLeaseTimeout() * 1_000_000))));
+        } catch (DataIntegrityViolationException e) {
+            return false; // 다른 인스턴스가 동시에 리스를 처음 만들었다.
+        }
+    }
+
+    // 보관 기간이 지난 이벤트 삭제 - 밀려 있는 이벤트가 없을 때만, 한 주기에 최대 maxBatchesPerRun 묶음
+    private void purge(TransactionTemplate transaction) {
+        LocalDateTime before = LocalDateTime.now().minusNanos(properties.getRetention() * 1_000_000);
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Integer deleted = transaction.execute(status -> outboxRepository.deletePublishedBefore(before, properties.getBatchSize()));
+            if (deleted == null || deleted < properties.getBatchSize()) {
+                return;
+            }
+        }
+    }
+}
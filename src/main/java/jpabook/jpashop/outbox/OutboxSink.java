@@ -0,0 +1,13 @@
+package jpabook.jpashop.outbox;
+
+import java.util.List;
+
+/**
+ * 아웃박스 이벤트를 내보낼 곳 - OutboxRelay 가 id 순서대로 묶어서 넘긴다.
+ * publish 가 정상 반환된 이벤트만 내보낸 것으로 표시한다. 예외를 던지면 같은 이벤트부터 다시 넘긴다. (at-least-once)
+ * 다른 메시지 브로커로 보내려면 이 인터페이스를 구현한 빈을 등록한다. (기본 구현은 OutboxConfig)
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages) throws Exception;
+}
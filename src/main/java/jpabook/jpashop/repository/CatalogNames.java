@@ -0,0 +1,151 @@
+package jpabook.jpashop.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 자동완성용 (id, 이름) 목록 - 불변
+ * 이름 순(대소문자 무시)으로 정렬된 long[] id / String[] 이름 배열이라 엔티티/박싱 객체 없이 작게 들고 있을 수 있고,
+ * 접두어 검색은 이진 탐색으로 시작 위치를 찾은 뒤 limit 건만 읽는다.
+ * 가입/수정된 항목은 배열을 다시 만들지 않고 작은 overlay(id -> 이름) 에 모아 두다가,
+ * overlay 가 COMPACT_THRESHOLD 건을 넘으면 그때 배열로 합친다.
+ */
+public final class CatalogNames {
+
+    private static final int COMPACT_THRESHOLD = 512;
+    private static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER;
+    private static final CatalogNames EMPTY = new CatalogNames(new long[0], new String[0], Collections.emptyMap());
+
+    private final long[] ids;
+    private final String[] names;
+    private final Map<Long, String> overlay; // 배열 이후에 바뀐 항목 (배열의 같은 id 보다 우선)
+
+    private CatalogNames(long[] ids, String[] names, Map<Long, String> overlay) {
+        this.ids = ids;
+        this.names = names;
+        this.overlay = overlay;
+    }
+
+    public static CatalogNames empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param rows (id, name) 목록
+     */
+    public static CatalogNames of(List<Object[]> rows) {
+        List<Entry> entries = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] != null) {
+                entries.add(new Entry((Long) row[0], ((String) row[1]).intern()));
+            }
+        }
+        return sorted(entries);
+    }
+
+    /**
+     * id 의 이름을 바꾼(또는 추가한) 새 목록
+     */
+    public CatalogNames with(Long id, String name) {
+        if (name == null) {
+            return this;
+        }
+        Map<Long, String> changed = new HashMap<>(overlay);
+        changed.put(id, name.intern());
+        if (changed.size() < COMPACT_THRESHOLD) {
+            return new CatalogNames(ids, names, Collections.unmodifiableMap(changed));
+        }
+
+        List<Entry> entries = new ArrayList<>(ids.length + changed.size());
+        for (int i = 0; i < ids.length; i++) {
+            if (!changed.containsKey(ids[i])) {
+                entries.add(new Entry(ids[i], names[i]));
+            }
+        }
+        changed.forEach((k, v) -> entries.add(new Entry(k, v)));
+        return sorted(entries);
+    }
+
+    /**
+     * 이름이 prefix 로 시작하는(대소문자 무시) 항목을 이름 순으로 최대 limit 건
+     * prefix 가 비어 있으면 이름 순 처음부터 limit 건
+     */
+    public List<Entry> search(String prefix, int limit) {
+        String p = prefix == null ? "" : prefix;
+        List<Entry> result = new ArrayList<>(limit);
+
+        for (int i = lowerBound(p); i < ids.length && result.size() < limit; i++) {
+            if (!startsWith(names[i], p)) {
+                break;
+            }
+            if (!overlay.containsKey(ids[i])) {
+                result.add(new Entry(ids[i], names[i]));
+            }
+        }
+        if (overlay.isEmpty()) {
+            return result;
+        }
+
+        // overlay 는 작으므로 전부 확인해서 합친다.
+        overlay.forEach((id, name) -> {
+            if (startsWith(name, p)) {
+                result.add(new Entry(id, name));
+            }
+        });
+        result.sort(Comparator.comparing(Entry::getName, ORDER).thenComparingLong(Entry::getId));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * 배열에 합쳐진 항목 수 (overlay 제외 - 기동/rebuild 직후에는 전체 건수)
+     */
+    public int compactedSize() {
+        return ids.length;
+    }
+
+    // 이름 순 배열에서 prefix 이상인 첫 위치
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ORDER.compare(names[mid], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean startsWith(String name, String prefix) {
+        return name.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static CatalogNames sorted(List<Entry> entries) {
+        Entry[] array = entries.toArray(new Entry[0]);
+        Arrays.sort(array, Comparator.comparing(Entry::getName, ORDER).thenComparingLong(Entry::getId));
+        long[] ids = new long[array.length];
+        String[] names = new String[array.length];
+        for (int i = 0; i < array.length; i++) {
+            ids[i] = array[i].getId();
+            names[i] = array[i].getName();
+        }
+        return new CatalogNames(ids, names, Collections.emptyMap());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final long id;
+        private final String name;
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 주문 폼 자동완성용 회원/상품 이름 메모리 스냅샷 (CatalogNames)
+ * 주문 폼이 회원/상품 전체를 엔티티로 읽어서 select 로 그리던 것을, 입력한 접두어로 몇 건씩만 찾아 오도록 바꾸면서 쓴다.
+ * 기동 시 (id, 이름) 만 읽어서 만들고, 이후에는 MemberService / ItemService 의 저장/수정이 커밋될 때 바뀐 항목만 반영한다.
+ * 주의: 인스턴스마다 따로 가지고 있으므로 다른 인스턴스/직접 SQL 로 바뀐 이름은 rebuild 전까지 반영되지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogSnapshot {
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    private volatile CatalogNames members = CatalogNames.empty();
+    private volatile CatalogNames items = CatalogNames.empty();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        CatalogNames builtMembers = readOnly.execute(status -> CatalogNames.of(
+                em.createQuery("select m.id, m.name from Member m", Object[].class).getResultList()));
+        CatalogNames builtItems = readOnly.execute(status -> CatalogNames.of(
+                em.createQuery("select i.id, i.name from Item i", Object[].class).getResultList()));
+        synchronized (this) {
+            members = builtMembers;
+            items = builtItems;
+        }
+        log.info("catalog snapshot built. members={}, items={}", builtMembers.compactedSize(), builtItems.compactedSize());
+    }
+
+    public List<CatalogNames.Entry> searchMembers(String prefix, int limit) {
+        return members.search(prefix, limit);
+    }
+
+    public List<CatalogNames.Entry> searchItems(String prefix, int limit) {
+        return items.search(prefix, limit);
+    }
+
+    /**
+     * 트랜잭션이 커밋된 뒤에 반영한다. (롤백된 가입/수정은 반영하지 않는다)
+     */
+    public void putMemberAfterCommit(Long memberId, String name) {
+        afterCommit(() -> putMember(memberId, name));
+    }
+
+    public void putItemAfterCommit(Long itemId, String name) {
+        afterCommit(() -> putItem(itemId, name));
+    }
+
+    private synchronized void putMember(Long memberId, String name) {
+        members = members.with(memberId, name);
+    }
+
+    private synchronized void putItem(Long itemId, String name) {
+        items = items.with(itemId, name);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.CategoryClosure;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * ids 와 그 조상 카테고리 row 를 비관적 락으로 잡는다. - 데드락을 피하기 위해 id 순서로 락을 잡는다.
+     * 어떤 카테고리의 조상 경로는 그 조상 중 하나가 옮겨져야만 바뀌므로, 경로 위 row 를 모두 잡으면
+     * 동시에 옮긴 하위 트리끼리 순환이 생기거나 옮기는 중인 경로로 클로저 행이 들어가지 않는다.
+     * 락을 기다리는 사이 다른 이동이 커밋되어 조상이 바뀌었으면 새 조상까지 더 잡는다.
+     */
+    public void lockPaths(Collection<Long> ids) {
+        Set<Long> locked = new TreeSet<>();
+        while (true) {
+            Set<Long> ancestors = new TreeSet<>(findAncestorIds(ids));
+            ancestors.removeAll(locked);
+            if (ancestors.isEmpty()) {
+                return;
+            }
+            em.createQuery("select c from Category c where c.id in :ids order by c.id", Category.class)
+                    .setParameter("ids", ancestors)
+                    .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                    .getResultList();
+            locked.addAll(ancestors);
+        }
+    }
+
+    // 자기 자신 포함
+    private List<Long> findAncestorIds(Collection<Long> ids) {
+        return em.createQuery(
+                        "select cc.id.ancestorId from CategoryClosure cc where cc.id.descendantId in :ids", Long.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    // 트리 스냅샷용 - id, name, parentId
+    public List<Object[]> findAllNodes() {
+        return em.createQuery("select c.id, c.name, c.parent.id from Category c", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 하위 카테고리(자기 자신 포함)에 속한 상품 - 클로저 테이블 한번 조인
+     * category_closure(ancestor_id) -> category_item(category_id) -> item, 쿼리 캐시 사용 (클로저/상품이 바뀌면 무효화)
+     */
+    public List<Item> findSubtreeItems(Long categoryId, int offset, int limit) {
+        return em.createQuery(
+                        "select distinct i from CategoryClosure cc, Category c" +
+                                " join c.items i" +
+                                " where cc.id.ancestorId = :categoryId" +
+                                " and c.id = cc.id.descendantId" +
+                                " order by i.id", Item.class)
+                .setParameter("categoryId", categoryId)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .setHint(QueryHints.HINT_CACHEABLE, true)
+                .getResultList();
+    }
+
+    public boolean isDescendant(Long ancestorId, Long descendantId) {
+        return !em.createQuery(
+                        "select cc.depth from CategoryClosure cc" +
+                                " where cc.id.ancestorId = :ancestorId and cc.id.descendantId = :descendantId", Integer.class)
+                .setParameter("ancestorId", ancestorId)
+                .setParameter("descendantId", descendantId)
+                .getResultList()
+                .isEmpty();
+    }
+
+    // 새 카테고리 - 자기 자신 경로
+    public void insertSelf(Long categoryId) {
+        closureUpdate("insert into category_closure (ancestor_id, descendant_id, depth) values (:id, :id, 0)")
+                .setParameter("id", categoryId)
+                .executeUpdate();
+    }
+
+    /**
+     * child 하위 트리를 parent 밑에 붙인다. - (parent 의 조상들) x (child 의 자손들) 경로 추가
+     */
+    public int linkSubtree(Long parentId, Long childId) {
+        return closureUpdate(
+                "insert into category_closure (ancestor_id, descendant_id, depth)" +
+                        " select a.ancestor_id, d.descendant_id, a.depth + d.depth + 1" +
+                        " from category_closure a, category_closure d" +
+                        " where a.descendant_id = :parentId and d.ancestor_id = :childId")
+                .setParameter("parentId", parentId)
+                .setParameter("childId", childId)
+                .executeUpdate();
+    }
+
+    /**
+     * child 하위 트리를 예전 부모에서 뗀다. - 하위 트리 밖의 조상 -> 하위 트리 경로 삭제
+     */
+    public int unlinkSubtree(Long childId) {
+        return closureUpdate(
+                "delete from category_closure" +
+                        " where descendant_id in (select d.descendant_id from category_closure d where d.ancestor_id = :childId)" +
+                        " and ancestor_id in (select a.ancestor_id from category_closure a where a.descendant_id = :childId and a.ancestor_id <> :childId)")
+                .setParameter("childId", childId)
+                .executeUpdate();
+    }
+
+    /**
+     * 클로저 테이블 전체를 parent_id 로부터 다시 만든다. (기존 데이터, JDBC 로 직접 넣은 카테고리)
+     * 깊이 단위로 한 번씩 insert - 재귀 없이 트리 깊이만큼만 반복
+     */
+    public void rebuildClosure() {
+        closureUpdate("delete from category_closure").executeUpdate();
+        closureUpdate("insert into category_closure (ancestor_id, descendant_id, depth)" +
+                " select category_id, category_id, 0 from category").executeUpdate();
+        for (int depth = 1; ; depth++) {
+            int inserted = closureUpdate(
+                    "insert into category_closure (ancestor_id, descendant_id, depth)" +
+                            " select cc.ancestor_id, c.category_id, :depth" +
+                            " from category_closure cc join category c on c.parent_id = cc.descendant_id" +
+                            " where cc.depth = :parentDepth")
+                    .setParameter("depth", depth)
+                    .setParameter("parentDepth", depth - 1)
+                    .executeUpdate();
+            if (inserted == 0) {
+                return;
+            }
+        }
+    }
+
+    // 클로저 테이블만 바뀐다고 알려준다. -> 네이티브 쿼리라도 다른 엔티티의 2차 캐시는 비우지 않는다.
+    private NativeQuery<?> closureUpdate(String sql) {
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(CategoryClosure.class);
+    }
+}
@@ -0,0 +1,176 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 카테고리 트리 스냅샷 - 불변
+ * 여러 스레드가 락 없이 같이 읽는다. 변경은 with() 로 새 스냅샷을 만들어서 통째로 교체한다. (CategoryTreeSnapshot)
+ */
+public final class CategoryTree {
+
+    private static final CategoryTree EMPTY = new CategoryTree(Collections.emptyMap(), Collections.emptyList());
+
+    private final Map<Long, Node> nodes;
+    private final List<Long> rootIds;
+
+    private CategoryTree(Map<Long, Node> nodes, List<Long> rootIds) {
+        this.nodes = nodes;
+        this.rootIds = rootIds;
+    }
+
+    public static CategoryTree empty() {
+        return EMPTY;
+    }
+
+    /**
+     * rows: id, name, parentId (CategoryRepository.findAllNodes)
+     */
+    public static CategoryTree of(List<Object[]> rows) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        List<Long> rootIds = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            Long parentId = (Long) row[2];
+            if (parentId == null) {
+                rootIds.add(id);
+            } else {
+                children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(id);
+            }
+        }
+
+        Map<Long, Node> nodes = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            nodes.put(id, new Node(id, (String) row[1], (Long) row[2], children.getOrDefault(id, Collections.emptyList())));
+        }
+        return new CategoryTree(Collections.unmodifiableMap(nodes), Collections.unmodifiableList(rootIds));
+    }
+
+    /**
+     * 카테고리 하나가 추가/이동/이름변경된 새 스냅샷 - 바뀐 노드(자신, 예전 부모, 새 부모)만 새로 만든다.
+     */
+    public CategoryTree with(Long id, String name, Long parentId) {
+        Map<Long, Node> next = new HashMap<>(nodes);
+        List<Long> nextRoots = new ArrayList<>(rootIds);
+
+        Node old = nodes.get(id);
+        List<Long> childIds = old == null ? Collections.emptyList() : old.childIds;
+        Long oldParentId = old == null ? null : old.parentId;
+
+        if (old != null && !Objects.equals(oldParentId, parentId)) {
+            if (oldParentId == null) {
+                nextRoots.remove(id);
+            } else {
+                Node oldParent = next.get(oldParentId);
+                next.put(oldParentId, oldParent.withChildIds(without(oldParent.childIds, id)));
+            }
+        }
+        if (old == null || !Objects.equals(oldParentId, parentId)) {
+            if (parentId == null) {
+                nextRoots.add(id);
+            } else {
+                Node parent = next.get(parentId);
+                if (parent != null) {
+                    next.put(parentId, parent.withChildIds(with(parent.childIds, id)));
+                }
+            }
+        }
+        next.put(id, new Node(id, name, parentId, childIds));
+        return new CategoryTree(Collections.unmodifiableMap(next), Collections.unmodifiableList(nextRoots));
+    }
+
+    public Node get(Long id) {
+        return nodes.get(id);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public List<Node> getRoots() {
+        return toNodes(rootIds);
+    }
+
+    public List<Node> getChildren(Long id) {
+        Node node = nodes.get(id);
+        return node == null ? Collections.emptyList() : toNodes(node.childIds);
+    }
+
+    /**
+     * 루트부터 id 까지 경로 (breadcrumb)
+     */
+    public List<Node> getPath(Long id) {
+        List<Node> path = new ArrayList<>();
+        for (Node node = nodes.get(id); node != null; node = node.parentId == null ? null : nodes.get(node.parentId)) {
+            path.add(node);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * id 와 모든 하위 카테고리 id
+     */
+    public List<Long> getSubtreeIds(Long id) {
+        if (!nodes.containsKey(id)) {
+            return Collections.emptyList();
+        }
+        List<Long> result = new ArrayList<>();
+        Deque<Long> queue = new ArrayDeque<>();
+        queue.add(id);
+        while (!queue.isEmpty()) {
+            Long current = queue.poll();
+            result.add(current);
+            queue.addAll(nodes.get(current).childIds);
+        }
+        return result;
+    }
+
+    private List<Node> toNodes(List<Long> ids) {
+        return ids.stream()
+                .map(nodes::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Long> with(List<Long> ids, Long id) {
+        List<Long> result = new ArrayList<>(ids);
+        result.add(id);
+        return result;
+    }
+
+    private static List<Long> without(List<Long> ids, Long id) {
+        List<Long> result = new ArrayList<>(ids);
+        result.remove(id);
+        return result;
+    }
+
+    @Getter
+    public static final class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final List<Long> childIds;
+
+        private Node(Long id, String name, Long parentId, List<Long> childIds) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.childIds = Collections.unmodifiableList(childIds);
+        }
+
+        private Node withChildIds(List<Long> childIds) {
+            return new Node(id, name, parentId, childIds);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 카테고리 트리 메모리 스냅샷 (CategoryTree)
+ * 기동 시 전체를 만들고, 이후에는 CategoryService 의 생성/이동이 커밋될 때 바뀐 노드만 반영한 새 스냅샷으로 교체한다.
+ * 주의: 인스턴스마다 따로 가지고 있으므로 다른 인스턴스/직접 SQL 로 바뀐 카테고리는 rebuild 전까지 반영되지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryTreeSnapshot {
+
+    private final CategoryRepository categoryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private volatile CategoryTree tree = CategoryTree.empty();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        CategoryTree built = readOnly.execute(status -> CategoryTree.of(categoryRepository.findAllNodes()));
+        synchronized (this) {
+            tree = built;
+        }
+        log.info("category tree built. categories={}", built.size());
+    }
+
+    public CategoryTree get() {
+        return tree;
+    }
+
+    /**
+     * 트랜잭션이 커밋된 뒤에 반영한다. (롤백된 변경은 반영하지 않는다)
+     */
+    public void putAfterCommit(Long id, String name, Long parentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(id, name, parentId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(id, name, parentId);
+            }
+        });
+    }
+
+    private synchronized void put(Long id, String name, Long parentId) {
+        tree = tree.with(id, name, parentId);
+    }
+}
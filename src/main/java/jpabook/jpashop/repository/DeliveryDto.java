@@ -0,0 +1,22 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 배송 목록 한 줄 - 배송 + 주문 id, 주문 일시
+ */
+@Data
+@AllArgsConstructor
+public class DeliveryDto {
+
+    private Long deliveryId;
+    private Long orderId;
+    private DeliveryStatus status;
+    private Address address;
+    private LocalDateTime orderDate;
+}
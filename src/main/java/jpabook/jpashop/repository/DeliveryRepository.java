@@ -0,0 +1,136 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class DeliveryRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 상태별 배송 목록 - delivery(status, delivery_id) 인덱스를 타는 keyset 페이징 (afterId 다음부터 id 순)
+     */
+    public List<DeliveryDto> findAllByStatus(DeliveryStatus status, Long afterId, int limit) {
+        TypedQuery<DeliveryDto> query = em.createQuery(
+                        "select new jpabook.jpashop.repository.DeliveryDto(d.id, o.id, d.status, d.address, o.orderDate)" +
+                                " from Delivery d" +
+                                " join d.order o" +
+                                " where d.status = :status" +
+                                (afterId != null ? " and d.id > :afterId" : "") +
+                                " order by d.id", DeliveryDto.class)
+                .setParameter("status", status)
+                .setMaxResults(limit);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 상태별 배송 수 - 없는 상태는 0 (상태가 없는 예전 배송은 세지 않는다)
+     */
+    public Map<DeliveryStatus, Long> countByStatus() {
+        Map<DeliveryStatus, Long> counts = new EnumMap<>(DeliveryStatus.class);
+        for (DeliveryStatus status : DeliveryStatus.values()) {
+            counts.put(status, 0L);
+        }
+        em.createQuery("select d.status, count(d) from Delivery d where d.status is not null group by d.status", Object[].class)
+                .getResultList()
+                .forEach(row -> counts.put((DeliveryStatus) row[0], (Long) row[1]));
+        return counts;
+    }
+
+    /**
+     * 배송 ids 의 주문 row 를 비관적 락으로 잡는다. - 데드락을 피하기 위해 id 순서로 락을 잡는다.
+     * 대량 취소(OrderRepository.cancelAll)도 주문 row 를 바꾸므로 상태 변경과 취소가 서로 기다린다.
+     */
+    public List<Long> lockOrders(Collection<Long> ids) {
+        return em.createQuery("select o from Order o where o.delivery.id in :ids order by o.id", Order.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultStream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * ids 중에서 status 로 바꿀 수 있는 배송과 그 주문 id - [deliveryId, orderId]
+     * 이미 그 상태이거나 되돌리는 경우(DeliveryStatus.canMove), 취소된 주문의 배송은 빠진다.
+     */
+    public List<Long[]> findMovableTo(Collection<Long> ids, DeliveryStatus status) {
+        List<DeliveryStatus> from = movableFrom(status);
+        if (from.isEmpty() && !DeliveryStatus.canMove(null, status)) {
+            return List.of();
+        }
+
+        TypedQuery<Object[]> query = em.createQuery(
+                "select d.id, o.id from Order o" +
+                        " join o.delivery d" +
+                        " where d.id in :ids" +
+                        " and o.status = :order" +
+                        " and " + fromCondition(from, status), Object[].class)
+                .setParameter("ids", ids)
+                .setParameter("order", OrderStatus.ORDER);
+        if (!from.isEmpty()) {
+            query.setParameter("from", from);
+        }
+        return query.getResultStream()
+                .map(row -> new Long[]{(Long) row[0], (Long) row[1]})
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 배송 상태 벌크 업데이트 - 영속성 컨텍스트를 거치지 않는다.
+     * 조회(findMovableTo) 이후에 바뀐 row 를 덮어쓰지 않도록 바꿀 수 있는 조건(이전 상태, 주문 상태)을 UPDATE 에서 다시 확인한다.
+     */
+    public int updateStatus(Collection<Long> ids, DeliveryStatus status) {
+        List<DeliveryStatus> from = movableFrom(status);
+        if (from.isEmpty() && !DeliveryStatus.canMove(null, status)) {
+            return 0;
+        }
+
+        Query query = em.createQuery(
+                "update Delivery d set d.status = :status" +
+                        " where d.id in :ids" +
+                        " and " + fromCondition(from, status) +
+                        " and d.id in (select o.delivery.id from Order o where o.delivery.id in :ids and o.status = :order)")
+                .setParameter("status", status)
+                .setParameter("ids", ids)
+                .setParameter("order", OrderStatus.ORDER);
+        if (!from.isEmpty()) {
+            query.setParameter("from", from);
+        }
+        return query.executeUpdate();
+    }
+
+    // status 로 바꿀 수 있는 이전 상태들
+    private List<DeliveryStatus> movableFrom(DeliveryStatus status) {
+        return Arrays.stream(DeliveryStatus.values())
+                .filter(s -> DeliveryStatus.canMove(s, status))
+                .collect(Collectors.toList());
+    }
+
+    // 상태가 없는(null) 예전 배송은 READY 로 본다. (DeliveryStatus.canMove)
+    private String fromCondition(List<DeliveryStatus> from, DeliveryStatus status) {
+        boolean fromNull = DeliveryStatus.canMove(null, status);
+        return from.isEmpty() ? "d.status is null"
+                : fromNull ? "(d.status in :from or d.status is null)"
+                : "d.status in :from";
+    }
+}
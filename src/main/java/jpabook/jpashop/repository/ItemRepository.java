@@ -5,6 +5,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -25,6 +27,69 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    // 비관적 락 - select ... for update. 트랜잭션이 끝날 때까지 다른 트랜잭션은 이 row 를 변경하지 못하고 대기한다.
+    public Item findOneForUpdate(Long id){
+        return em.find(Item.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    // 이미 영속 상태인 상품을 비관적 락으로 다시 읽어온다. (락을 잡기 전에 읽은 재고 값은 오래된 값일 수 있다)
+    public void lockForUpdate(Item item){
+        em.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    /**
+     * 재고 증감을 상대값으로 반영하는 벌크 업데이트 (재고 예약 원장 flush 용)
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않고 바로 DB 에 반영된다.
+     * @Version 도 같이 올린다. -> 그 사이 상품을 읽어서 수정 중인 트랜잭션이 예전 재고로 덮어쓰지 못하고 충돌한다.
+     */
+    public int addStockQuantity(Long id, int delta){
+        int updated = em.createQuery("update Item i set i.stockQuantity = i.stockQuantity + :delta, i.version = i.version + 1" +
+                        " where i.id = :id")
+                .setParameter("delta", delta)
+                .setParameter("id", id)
+                .executeUpdate();
+        em.getEntityManagerFactory().getCache().evict(Item.class, id); // 2차 캐시에 남은 예전 재고 제거
+        return updated;
+    }
+
+    // 재고 수량만 DB 에서 바로 읽는다. (2차 캐시, 영속성 컨텍스트를 거치지 않음) - 없는 상품이면 null
+    public Integer findStockQuantity(Long id){
+        return em.createQuery("select i.stockQuantity from Item i where i.id = :id", Integer.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 재고 원복 벌크 업데이트 (대량 취소)
+     * @Version 도 같이 올린다. -> 이 상품을 먼저 읽어둔 낙관적 락 주문이 예전 재고로 덮어쓰지 못하고 충돌로 재시도한다.
+     * 벌크 JPQL 업데이트이므로 하이버네이트가 Item 2차 캐시를 비운다.
+     */
+    public int restockQuantity(Long id, int quantity){
+        return em.createQuery("update Item i set i.stockQuantity = i.stockQuantity + :quantity, i.version = i.version + 1" +
+                        " where i.id = :id")
+                .setParameter("quantity", quantity)
+                .setParameter("id", id)
+                .executeUpdate();
+    }
+
+    // IN 쿼리로 여러 상품을 한번에 조회
+    public List<Item> findAllById(Collection<Long> ids){
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    // IN 쿼리 + 비관적 락. 데드락을 피하기 위해 id 순서로 락을 잡는다.
+    public List<Item> findAllByIdForUpdate(Collection<Long> ids){
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
+
+    // 쿼리 캐시를 쓰지 않는다. - 결과 id 전부를 캐시하고, item 영역보다 많으면 id 마다 select 가 다시 나간다.
     public List<Item> findAll(){
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
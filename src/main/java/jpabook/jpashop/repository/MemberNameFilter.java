@@ -0,0 +1,120 @@
+package jpabook.jpashop.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 블룸 필터 - 메모리
+ * mightContain 이 false 면 그 이름의 회원은 확실히 없다. -> 가입 중복 검사에서 DB 조회를 생략한다.
+ * true 면 있을 수도 있으므로(오탐) DB 로 확인한다. 비트는 켜기만 하므로 이름이 바뀌거나 가입이 롤백되면 오탐만 늘어난다.
+ * 최종 중복 판단은 DB 유니크 제약(uk_member_name)이 한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameFilter {
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${jpashop.member.name-filter.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jpashop.member.name-filter.expected-members:1000000}")
+    private long expectedMembers;
+
+    @Value("${jpashop.member.name-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private AtomicLongArray bits;
+    private int bitCount;
+    private int hashCount;
+    private final AtomicLong size = new AtomicLong();
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        // m = -n ln p / (ln 2)^2, k = m / n ln 2
+        double m = -expectedMembers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(m)));
+        hashCount = (int) Math.max(1, Math.round(bitCount / (double) expectedMembers * Math.log(2)));
+        bits = new AtomicLongArray((bitCount + 63) / 64);
+    }
+
+    /**
+     * 기존 회원 이름 전체 반영 - 기동 시, JDBC 로 직접 회원을 넣은 뒤(BulkDataGenerator)
+     * 반영 중에는 mightContain 이 항상 true (DB 로 확인)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        ready = false;
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status ->
+                em.createQuery("select m.name from Member m", String.class)
+                        .getResultStream()
+                        .forEach(this::put));
+
+        ready = true;
+        log.info("member name filter built. names={}, bits={}, hashes={}", size.get(), bitCount, hashCount);
+    }
+
+    public void put(String name) {
+        if (!enabled || name == null) {
+            return;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << (index & 63);
+            bits.getAndAccumulate(index >>> 6, mask, (word, bit) -> word | bit);
+        }
+        size.incrementAndGet();
+    }
+
+    /**
+     * false 면 확실히 없는 이름, true 면 DB 로 확인해야 한다.
+     */
+    public boolean mightContain(String name) {
+        if (!enabled || !ready || name == null) {
+            return true;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(index >>> 6) & (1L << (index & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a 64bit - 상위/하위 32bit 를 두 해시로 쓴다. (double hashing)
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
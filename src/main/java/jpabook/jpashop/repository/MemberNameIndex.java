@@ -0,0 +1,156 @@
+package jpabook.jpashop.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 이름 n-gram(3글자) 인덱스 - 메모리
+ * 주문 검색의 m.name like '%이름%' 는 인덱스를 못 타서 member 테이블 전체를 읽는다.
+ * 이름을 3글자 조각으로 나눠서 조각 -> 회원 id 목록을 들고 있다가, 검색어 조각들의 교집합으로 회원 id 를 먼저 찾는다.
+ * 애플리케이션 기동 시 전체를 만들고, 이후에는 MemberService 의 가입/수정이 커밋될 때 갱신한다.
+ * 주의: 인스턴스마다 따로 가지고 있으므로 다른 인스턴스/직접 SQL 로 바뀐 이름은 재기동(rebuild) 전까지 반영되지 않는다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberNameIndex {
+
+    private static final int GRAM = 3;
+    private static final int MAX_MEMBER_IDS = 1_000; // 이보다 많이 걸리면 IN 절이 너무 길어지므로 like 검색으로 처리
+
+    private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        ready = false;
+        grams.clear();
+        names.clear();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status ->
+                em.createQuery("select m.id, m.name from Member m", Object[].class)
+                        .getResultStream()
+                        .forEach(row -> add((Long) row[0], (String) row[1])));
+
+        ready = true;
+        log.info("member name index built. members={}, grams={}", names.size(), grams.size());
+    }
+
+    /**
+     * 이름에 query 가 포함된 회원 id (like '%query%' 와 같은 결과)
+     * 인덱스를 쓸 수 없으면(빌드 전, 결과가 너무 많음) null -> 호출하는 쪽에서 like 로 검색한다.
+     */
+    public List<Long> findMemberIds(String query) {
+        if (!ready) {
+            return null;
+        }
+
+        List<Long> result;
+        if (query.length() < GRAM) {
+            // 조각보다 짧은 검색어는 이름 전체를 메모리에서 확인
+            result = names.entrySet().stream()
+                    .filter(e -> e.getValue().contains(query))
+                    .map(Map.Entry::getKey)
+                    .limit(MAX_MEMBER_IDS + 1)
+                    .collect(Collectors.toList());
+        } else {
+            result = candidates(query).stream()
+                    .filter(id -> {
+                        String name = names.get(id);
+                        return name != null && name.contains(query); // 조각은 다 있어도 연속이 아닐 수 있다.
+                    })
+                    .limit(MAX_MEMBER_IDS + 1)
+                    .collect(Collectors.toList());
+        }
+        return result.size() > MAX_MEMBER_IDS ? null : result;
+    }
+
+    /**
+     * 트랜잭션이 커밋된 뒤에 인덱스에 반영한다. (롤백된 가입/수정은 반영하지 않는다)
+     */
+    public void putAfterCommit(Long memberId, String name) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(memberId, name);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(memberId, name);
+            }
+        });
+    }
+
+    private synchronized void put(Long memberId, String name) {
+        String old = names.get(memberId);
+        if (old != null) {
+            for (String gram : gramsOf(old)) {
+                Set<Long> ids = grams.get(gram);
+                if (ids != null) {
+                    ids.remove(memberId);
+                }
+            }
+        }
+        add(memberId, name);
+    }
+
+    private void add(Long memberId, String name) {
+        if (name == null) {
+            return;
+        }
+        names.put(memberId, name);
+        for (String gram : gramsOf(name)) {
+            grams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(memberId);
+        }
+    }
+
+    // 검색어 조각별 회원 id 목록의 교집합 - 가장 작은 목록부터 걸러낸다.
+    private Set<Long> candidates(String query) {
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : gramsOf(query)) {
+            Set<Long> ids = grams.get(gram);
+            if (ids == null) {
+                return Collections.emptySet();
+            }
+            postings.add(ids);
+        }
+        postings.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<Long> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private static Set<String> gramsOf(String value) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            result.add(value.substring(i, i + GRAM));
+        }
+        return result;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,16 +20,44 @@ public class MemberRepository {
         em.persist(member);  // persist : 영속성 컨텍스트에 member를 넣어두었다가 commit되는 시점에 디비로 insert 쿼리가 날라감
     }
 
+    // insert 를 바로 실행 - 유니크 제약(uk_member_name) 위반을 커밋이 아니라 이 시점에 DataIntegrityViolationException 으로 받는다.
+    public void saveAndFlush(Member member){
+        em.persist(member);
+        em.flush();
+    }
+
+    // 변경 감지 update 를 바로 실행 - 이름 변경의 유니크 제약 위반을 커밋이 아니라 이 시점에 받는다.
+    public void flush(){
+        em.flush();
+    }
+
     public Member findOne(Long id){
         return em.find(Member.class, id);
     }
 
     // createQuery(쿼리, 반환타입)
     public List<Member> findAll(){
+        // 쿼리 캐시를 쓰지 않는다. - 결과 id 전부를 캐시하고, member 영역보다 많으면 id 마다 select 가 다시 나간다.
         return em.createQuery("select m from Member m", Member.class)
                 .getResultList();
     }
 
+    // IN 쿼리로 여러 회원을 한번에 조회
+    public List<Member> findAllById(Collection<Long> ids){
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    // 같은 이름의 회원이 있는지 - 엔티티를 읽지 않고 uk_member_name 인덱스에서 1건만 확인
+    public boolean existsByName(String name){
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
     public List<Member> findByName(String name){
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
@@ -1,22 +1,30 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
     private final EntityManager em;
+    private final MemberNameIndex memberNameIndex;
 
     public void save(Order order) {
         em.persist(order);
@@ -26,6 +34,14 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
+    /**
+     * 주문 row 를 비관적 락으로 잡고 조회 (단건 취소)
+     * 배송 상태 반영(DeliveryRepository.lockOrders)과 같은 락이므로, 락을 잡은 뒤 읽은 배송 상태와 주문 상태는 커밋까지 바뀌지 않는다.
+     */
+    public Order findOneForUpdate(Long id) {
+        return em.find(Order.class, id, LockModeType.PESSIMISTIC_WRITE);
+    }
+
     // 주문 검색기능 - JPA에서 동적 쿼리를 어떻게 해결해야 하는가?
     // Querydsl 써야한다.
 
@@ -37,6 +53,10 @@ public class OrderRepository {
      */
 
     public List<Order> findAllByCriteria(OrderSearch orderSearch) {
+        List<Long> memberIds = findMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Order> cq = cb.createQuery(Order.class);
@@ -49,14 +69,29 @@ public class OrderRepository {
                     orderSearch.getOrderStatus());
             criteria.add(status);
         }
-        //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
+        //회원 이름 검색 - 이름 인덱스로 찾은 회원 id 로 검색, 인덱스를 못 쓰면 like
+        if (memberIds != null) {
+            criteria.add(m.get("id").in(memberIds));
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
             Predicate name =
                     cb.like(m.<String>get("name"), "%" +
                             orderSearch.getMemberName() + "%");
             criteria.add(name);
         }
+        //주문 금액 검색
+        if (orderSearch.getMinTotalPrice() != null) {
+            criteria.add(cb.ge(o.get("totalPrice"), orderSearch.getMinTotalPrice()));
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            criteria.add(cb.le(o.get("totalPrice"), orderSearch.getMaxTotalPrice()));
+        }
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
+        //주문 금액 정렬
+        if (orderSearch.getSort() == OrderSort.TOTAL_PRICE_DESC) {
+            cq.orderBy(cb.desc(o.get("totalPrice")), cb.desc(o.get("id")));
+        } else if (orderSearch.getSort() == OrderSort.TOTAL_PRICE_ASC) {
+            cq.orderBy(cb.asc(o.get("totalPrice")), cb.asc(o.get("id")));
+        }
         TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
         return query.getResultList();
     }
@@ -64,6 +99,10 @@ public class OrderRepository {
 
     // // language='JPAQL' 실무에서 이렇게 안쓴다고 함. // 코드 지저분 // 에러 발생 가능성 높음
     public List<Order> findAllByString(OrderSearch orderSearch) {
+        List<Long> memberIds = findMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
         String jpql = "select o From Order o join o.member m";
         boolean isFirstCondition = true;
@@ -87,7 +126,32 @@ public class OrderRepository {
             } else {
                 jpql += " and";
             }
-            jpql += " m.name like :name";
+            jpql += memberIds != null ? " m.id in :memberIds" : " m.name like :name";
+        }
+
+        //주문 금액 검색
+        if (orderSearch.getMinTotalPrice() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.totalPrice >= :minTotalPrice";
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            if (isFirstCondition) {
+                jpql += " where";
+                isFirstCondition = false;
+            } else {
+                jpql += " and";
+            }
+            jpql += " o.totalPrice <= :maxTotalPrice";
+        }
+
+        //주문 금액 정렬
+        if (orderSearch.getSort() == OrderSort.TOTAL_PRICE_DESC || orderSearch.getSort() == OrderSort.TOTAL_PRICE_ASC) {
+            jpql += orderBy(orderSearch.getSort());
         }
 
         TypedQuery<Order> query = em.createQuery(jpql, Order.class)
@@ -95,8 +159,16 @@ public class OrderRepository {
         if (orderSearch.getOrderStatus() != null) {
             query = query.setParameter("status", orderSearch.getOrderStatus());
         }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+        if (memberIds != null) {
+            query = query.setParameter("memberIds", memberIds);
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query = query.setParameter("name", "%" + orderSearch.getMemberName() + "%");
+        }
+        if (orderSearch.getMinTotalPrice() != null) {
+            query = query.setParameter("minTotalPrice", orderSearch.getMinTotalPrice());
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            query = query.setParameter("maxTotalPrice", orderSearch.getMaxTotalPrice());
         }
         return query.getResultList();
 
@@ -111,5 +183,200 @@ public class OrderRepository {
         ).getResultList();
     }
 
+    /**
+     * 주문 검색 - keyset(커서) 페이징
+     * (orderDate, id) 내림차순으로 커서 다음 row 부터 limit 건 조회한다. 커서가 null 이면 첫 페이지
+     * orders(order_date, order_id) 인덱스를 타므로 페이지 위치와 상관없이 비용이 같다.
+     */
+    public List<Order> findAllByCursor(OrderSearch orderSearch, OrderCursor cursor, int limit) {
+        List<Long> memberIds = findMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d" +
+                searchWhere(orderSearch, memberIds, cursor) +
+                " order by o.orderDate desc, o.id desc";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        bindSearch(query, orderSearch, memberIds, cursor);
+        return query.getResultList();
+    }
+
+    /**
+     * 주문 목록 화면 - offset 페이징, DTO 로 한번에 조회
+     * 회원, 대표상품(주문상품 중 id 가 가장 작은 것)과 상품을 조인해서 한 줄로 가져오므로 화면에서 지연 로딩이 일어나지 않는다.
+     */
+    public List<OrderListDto> findOrderList(OrderSearch orderSearch, int offset, int limit) {
+        List<Long> memberIds = findMemberIds(orderSearch);
+        if (memberIds != null && memberIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> conditions = searchConditions(orderSearch, memberIds, null);
+        conditions.add(0, "oi.id = (select min(oi2.id) from OrderItem oi2 where oi2.order = o)");
+
+        String jpql = "select new jpabook.jpashop.repository.OrderListDto(" +
+                "o.id, m.name, i.name, oi.orderPrice, oi.count, o.totalPrice, o.status, o.orderDate)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.orderItems oi" +
+                " join oi.item i" +
+                " where " + String.join(" and ", conditions) +
+                orderBy(orderSearch.getSort());
+
+        TypedQuery<OrderListDto> query = em.createQuery(jpql, OrderListDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit);
+        bindSearch(query, orderSearch, memberIds, null);
+        return query.getResultList();
+    }
+
+    /**
+     * 회원 이름 -> 회원 id (MemberNameIndex)
+     * 이름 조건이 없거나 인덱스를 쓸 수 없으면 null, 일치하는 회원이 없으면 빈 목록
+     */
+    private List<Long> findMemberIds(OrderSearch orderSearch) {
+        if (!StringUtils.hasText(orderSearch.getMemberName())) {
+            return null;
+        }
+        return memberNameIndex.findMemberIds(orderSearch.getMemberName());
+    }
+
+    private String searchWhere(OrderSearch orderSearch, List<Long> memberIds, OrderCursor cursor) {
+        List<String> conditions = searchConditions(orderSearch, memberIds, cursor);
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private List<String> searchConditions(OrderSearch orderSearch, List<Long> memberIds, OrderCursor cursor) {
+        List<String> conditions = new ArrayList<>();
+        if (orderSearch.getOrderStatus() != null) {
+            conditions.add("o.status = :status");
+        }
+        if (memberIds != null) {
+            conditions.add("m.id in :memberIds");
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            conditions.add("m.name like :name");
+        }
+        if (orderSearch.getMinTotalPrice() != null) {
+            conditions.add("o.totalPrice >= :minTotalPrice");
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            conditions.add("o.totalPrice <= :maxTotalPrice");
+        }
+        if (cursor != null) {
+            conditions.add("(o.orderDate < :cursorDate or (o.orderDate = :cursorDate and o.id < :cursorId))");
+        }
+        return conditions;
+    }
+
+    private String orderBy(OrderSort sort) {
+        if (sort == OrderSort.TOTAL_PRICE_DESC) {
+            return " order by o.totalPrice desc, o.id desc";
+        }
+        if (sort == OrderSort.TOTAL_PRICE_ASC) {
+            return " order by o.totalPrice asc, o.id asc";
+        }
+        return " order by o.orderDate desc, o.id desc";
+    }
+
+    /**
+     * 전체 주문 가격(total_price) 채우기 - 역정규화 컬럼 추가 전에 저장된 주문용
+     * id 범위 단위로 나눠서 호출한다. (긴 트랜잭션/락 방지)
+     */
+    public int backfillTotalPrice(Long fromId, Long toId) {
+        // orders 만 바뀐다고 알려준다. -> 다른 2차 캐시 영역과 쿼리 캐시를 비우지 않는다.
+        return em.createNativeQuery(
+                        "update orders o set total_price =" +
+                                " (select coalesce(sum(oi.order_price * oi.count), 0) from order_item oi where oi.order_id = o.order_id)" +
+                                " where o.order_id between :fromId and :toId")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Order.class)
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+    }
+
+    public Long[] findIdRange() {
+        Object[] range = (Object[]) em.createQuery("select min(o.id), max(o.id) from Order o").getSingleResult();
+        return new Long[]{(Long) range[0], (Long) range[1]};
+    }
+
+    private void bindSearch(TypedQuery<?> query, OrderSearch orderSearch, List<Long> memberIds, OrderCursor cursor) {
+        if (orderSearch.getOrderStatus() != null) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (memberIds != null) {
+            query.setParameter("memberIds", memberIds);
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query.setParameter("name", "%" + orderSearch.getMemberName() + "%");
+        }
+        if (orderSearch.getMinTotalPrice() != null) {
+            query.setParameter("minTotalPrice", orderSearch.getMinTotalPrice());
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            query.setParameter("maxTotalPrice", orderSearch.getMaxTotalPrice());
+        }
+        if (cursor != null) {
+            query.setParameter("cursorDate", cursor.getOrderDate());
+            query.setParameter("cursorId", cursor.getOrderId());
+        }
+    }
+
+    /**
+     * 대량 취소 - 주문 + 배송을 IN 쿼리 한번으로 조회 (배송 완료 여부 확인용)
+     */
+    public List<Order> findAllWithDelivery(Collection<Long> ids) {
+        return em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.delivery d" +
+                        " where o.id in :ids", Order.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * 대량 취소 - 주문 상태 벌크 업데이트
+     * 주문 상태(ORDER)이고 배송 완료(COMP)가 아닌 것만 바꾸므로, 그 사이 다른 요청에서 취소되거나 배송 완료된 주문이 있으면 반환값이 ids 수보다 작다.
+     */
+    public int cancelAll(Collection<Long> ids) {
+        return em.createQuery("update Order o set o.status = :cancel" +
+                        " where o.id in :ids and o.status = :order" +
+                        " and o.delivery.id not in (select d.id from Delivery d where d.status = :comp)")
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("comp", DeliveryStatus.COMP)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * 대량 취소 - 주문상품 수량을 상품별로 합산 (itemId -> 수량)
+     * 주문상품 엔티티를 읽지 않고 DB 에서 group by 한다.
+     */
+    public Map<Long, Integer> sumOrderItemCounts(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select oi.item.id, sum(oi.count) from OrderItem oi" +
+                        " where oi.order.id in :orderIds" +
+                        " group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> ((Number) row[1]).intValue()));
+    }
+
+    // xToOne 만 fetch join 하고 페이징. 컬렉션(orderItems)은 default_batch_fetch_size 로 지연 로딩 최적화
+    public List<Order> findAllWithMemberDelivery(int offset, int limit) {
+        return em.createQuery(
+                "select o from Order o" +
+                        " join fetch o.member m" +
+                        " join fetch o.delivery d" +
+                        " order by o.id", Order.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
 
 }
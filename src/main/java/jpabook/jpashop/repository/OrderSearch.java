@@ -9,4 +9,7 @@ public class OrderSearch {
 
     private String memberName; // 회원 이름
     private OrderStatus orderStatus; // 주문 상태[ORDER, CANCEL]
+    private Integer minTotalPrice; // 주문 금액 이상
+    private Integer maxTotalPrice; // 주문 금액 이하
+    private OrderSort sort; // 정렬 (null 이면 최근 주문 순) - 커서 페이징은 항상 최근 주문 순
 }
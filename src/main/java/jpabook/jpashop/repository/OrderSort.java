@@ -0,0 +1,10 @@
+package jpabook.jpashop.repository;
+
+/**
+ * 주문 검색 정렬 기준
+ */
+public enum OrderSort {
+    LATEST, // 최근 주문 순 (기본)
+    TOTAL_PRICE_DESC, // 주문 금액 높은 순
+    TOTAL_PRICE_ASC // 주문 금액 낮은 순
+}
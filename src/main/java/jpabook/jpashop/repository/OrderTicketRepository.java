@@ -0,0 +1,45 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderTicket;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderTicketRepository {
+
+    private final EntityManager em;
+
+    // id 를 직접 넣는 엔티티 - merge 가 아니라 persist 로 바로 insert (select 없음)
+    public void save(OrderTicket orderTicket){
+        em.persist(orderTicket);
+    }
+
+    public OrderTicket findOne(Long ticket){
+        return em.find(OrderTicket.class, ticket);
+    }
+
+    // 이미 처리된 ticket - IN 쿼리 한번
+    public Set<Long> findExistingIds(Collection<Long> tickets){
+        if (tickets.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(em.createQuery("select t.id from OrderTicket t where t.id in :tickets", Long.class)
+                .setParameter("tickets", tickets)
+                .getResultList());
+    }
+
+    // (from, to] 범위에서 가장 큰 ticket - 없으면 0
+    public long findMaxId(long from, long to){
+        Long max = em.createQuery("select max(t.id) from OrderTicket t where t.id > :from and t.id <= :to", Long.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getSingleResult();
+        return max == null ? 0 : max;
+    }
+}
@@ -0,0 +1,99 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.domain.OutboxRelayLease;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+
+    private final EntityManager em;
+
+    public void save(OutboxEvent event){
+        em.persist(event);
+    }
+
+    // 아직 내보내지 않은 이벤트 - publishSeq 를 이미 받은 것(내보내다 실패) 먼저, 그 다음 PK 순서
+    public List<OutboxEvent> findUnpublished(int limit){
+        return em.createQuery("select e from OutboxEvent e where e.publishedAt is null" +
+                        " order by e.publishSeq nulls last, e.id", OutboxEvent.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // 내보낸 이벤트 표시 - 영속성 컨텍스트를 거치지 않는 벌크 update 한번
+    public int markPublished(Collection<Long> ids, LocalDateTime publishedAt){
+        return em.createQuery("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids")
+                .setParameter("publishedAt", publishedAt)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    // 내보낸 이벤트 중 after 다음 publishSeq 부터 - uk_outbox_event_publish_seq 범위 조회 (/api/v1/changes)
+    public List<OutboxEvent> findPublishedAfter(long after, int limit){
+        return em.createQuery("select e from OutboxEvent e where e.publishSeq > :after and e.publishedAt is not null" +
+                        " order by e.publishSeq", OutboxEvent.class)
+                .setParameter("after", after)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // 남아 있는 가장 오래된 publishSeq - 없으면 null
+    public Long findOldestPublishSeq(){
+        return em.createQuery("select min(e.publishSeq) from OutboxEvent e", Long.class).getSingleResult();
+    }
+
+    // 보관 기간이 지난 이벤트를 최대 limit 건 삭제
+    public int deletePublishedBefore(LocalDateTime before, int limit){
+        List<Long> ids = em.createQuery("select e.id from OutboxEvent e where e.publishedAt < :before order by e.id", Long.class)
+                .setParameter("before", before)
+                .setMaxResults(limit)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.createQuery("delete from OutboxEvent e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    // 리스 row 를 락으로 잡는다. - publishSeq 예약
+    public OutboxRelayLease findLeaseForUpdate(String name){
+        return em.find(OutboxRelayLease.class, name, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    public long count(){
+        return em.createQuery("select count(e) from OutboxEvent e", Long.class).getSingleResult();
+    }
+
+    /**
+     * 릴레이 리스 갱신 - 이미 가지고 있거나 만료된 리스만 가져온다. 가져왔으면 true
+     * 리스 row 가 없으면 만든다. 동시에 처음 만들면 한쪽은 PK 중복으로 실패한다.
+     */
+    public boolean acquireLease(String name, String owner, LocalDateTime now, LocalDateTime expiresAt){
+        int updated = em.createQuery("update OutboxRelayLease l set l.owner = :owner, l.expiresAt = :expiresAt" +
+                        " where l.name = :name and (l.owner = :owner or l.expiresAt < :now)")
+                .setParameter("owner", owner)
+                .setParameter("expiresAt", expiresAt)
+                .setParameter("name", name)
+                .setParameter("now", now)
+                .executeUpdate();
+        if (updated == 1) {
+            return true;
+        }
+        if (em.find(OutboxRelayLease.class, name) != null) {
+            return false;
+        }
+        em.persist(OutboxRelayLease.create(name, owner, expiresAt));
+        em.flush();
+        return true;
+    }
+}
@@ -0,0 +1,143 @@
+package jpabook.jpashop.repository.analytics;
+
+import jpabook.jpashop.domain.DailyCitySales;
+import jpabook.jpashop.domain.DailyItemSales;
+import jpabook.jpashop.domain.DailyOrderStats;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 매출/주문 집계
+ * 조회는 일별 집계 테이블(daily_*)을 기간으로 group by 하고, 집계 테이블은 하루 단위로 원본(orders, order_item, delivery)에서 다시 만든다.
+ * 주문 엔티티를 읽어서 getTotalPrice() 를 더하지 않고 모두 DB 에서 합산한다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AnalyticsRepository {
+
+    private final EntityManager em;
+
+    public List<TopItemDto> findTopItems(LocalDate from, LocalDate to, int limit) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.analytics.TopItemDto(s.id.itemId, i.name, sum(s.quantity), sum(s.revenue))" +
+                                " from DailyItemSales s, Item i" +
+                                " where i.id = s.id.itemId" +
+                                " and s.id.salesDate between :from and :to" +
+                                " group by s.id.itemId, i.name" +
+                                " order by sum(s.revenue) desc, s.id.itemId", TopItemDto.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<DailyOrderStats> findDailyOrderStats(LocalDate from, LocalDate to) {
+        return em.createQuery(
+                        "select s from DailyOrderStats s" +
+                                " where s.id.salesDate between :from and :to" +
+                                " order by s.id.salesDate", DailyOrderStats.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    public List<CityRevenueDto> findRevenueByCity(LocalDate from, LocalDate to) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.analytics.CityRevenueDto(s.id.city, sum(s.orderCount), sum(s.revenue))" +
+                                " from DailyCitySales s" +
+                                " where s.id.salesDate between :from and :to" +
+                                " group by s.id.city" +
+                                " order by sum(s.revenue) desc, s.id.city", CityRevenueDto.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    /**
+     * 마지막으로 집계를 다시 계산한 시각 - 한번도 안했으면 null
+     */
+    public LocalDateTime findLastRefreshedAt() {
+        return em.createQuery("select max(s.refreshedAt) from DailyOrderStats s", LocalDateTime.class)
+                .getSingleResult();
+    }
+
+    /**
+     * 갱신이 중간에 실패했을 때 - 이번 갱신에서 다시 계산한 날짜의 갱신 시각을 이전 기준 시각으로 되돌린다.
+     */
+    public int resetRefreshedAt(LocalDateTime refreshedAt, LocalDateTime previous) {
+        return em.createQuery("update DailyOrderStats s set s.refreshedAt = :previous where s.refreshedAt = :refreshedAt")
+                .setParameter("previous", previous)
+                .setParameter("refreshedAt", refreshedAt)
+                .executeUpdate();
+    }
+
+    /**
+     * 하루치 집계를 원본 테이블에서 다시 만든다. - 테이블마다 delete + insert ... select (group by) 한번씩
+     * 주문 일자 범위 조건이라 orders(order_date, order_id) 인덱스를 탄다.
+     */
+    public void refreshDay(LocalDate day, LocalDateTime refreshedAt) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+
+        delete(DailyOrderStats.class, "daily_order_stats", day);
+        rollupUpdate(DailyOrderStats.class,
+                        "insert into daily_order_stats (sales_date, status, order_count, revenue, refreshed_at)" +
+                                " select cast(:day as date), o.status, count(*), coalesce(sum(o.total_price), 0), cast(:refreshedAt as timestamp)" +
+                                " from orders o" +
+                                " where o.order_date >= :from and o.order_date < :to" +
+                                " group by o.status")
+                .setParameter("day", day)
+                .setParameter("refreshedAt", refreshedAt)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .executeUpdate();
+
+        delete(DailyItemSales.class, "daily_item_sales", day);
+        rollupUpdate(DailyItemSales.class,
+                        "insert into daily_item_sales (sales_date, item_id, order_count, quantity, revenue)" +
+                                " select cast(:day as date), oi.item_id, count(distinct oi.order_id), sum(oi.count), sum(cast(oi.order_price as bigint) * oi.count)" +
+                                " from order_item oi" +
+                                " join orders o on o.order_id = oi.order_id" +
+                                " where o.order_date >= :from and o.order_date < :to and o.status = :status" +
+                                " group by oi.item_id")
+                .setParameter("day", day)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", OrderStatus.ORDER.name())
+                .executeUpdate();
+
+        delete(DailyCitySales.class, "daily_city_sales", day);
+        rollupUpdate(DailyCitySales.class,
+                        "insert into daily_city_sales (sales_date, city, order_count, revenue)" +
+                                " select cast(:day as date), coalesce(d.city, ''), count(*), sum(o.total_price)" +
+                                " from orders o" +
+                                " join delivery d on d.delivery_id = o.delivery_id" +
+                                " where o.order_date >= :from and o.order_date < :to and o.status = :status" +
+                                " group by coalesce(d.city, '')")
+                .setParameter("day", day)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("status", OrderStatus.ORDER.name())
+                .executeUpdate();
+    }
+
+    private void delete(Class<?> rollup, String table, LocalDate day) {
+        rollupUpdate(rollup, "delete from " + table + " where sales_date = :day")
+                .setParameter("day", day)
+                .executeUpdate();
+    }
+
+    // 집계 테이블만 바뀐다고 알려준다. -> 네이티브 쿼리라도 Item/Member/Category 2차 캐시와 쿼리 캐시를 비우지 않는다.
+    private NativeQuery<?> rollupUpdate(Class<?> rollup, String sql) {
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(rollup);
+    }
+}
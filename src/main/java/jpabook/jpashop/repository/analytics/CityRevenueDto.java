@@ -0,0 +1,13 @@
+package jpabook.jpashop.repository.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CityRevenueDto {
+
+    private String city;
+    private long orderCount;
+    private long revenue;
+}
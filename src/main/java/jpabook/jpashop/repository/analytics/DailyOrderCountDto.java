@@ -0,0 +1,26 @@
+package jpabook.jpashop.repository.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 하루치 주문 수 - 주문 상태별 (없는 상태는 0)
+ */
+@Data
+public class DailyOrderCountDto {
+
+    private LocalDate date;
+    private Map<OrderStatus, Long> orderCounts = new EnumMap<>(OrderStatus.class);
+    private long revenue; // 취소되지 않은 주문 금액
+
+    public DailyOrderCountDto(LocalDate date) {
+        this.date = date;
+        for (OrderStatus status : OrderStatus.values()) {
+            orderCounts.put(status, 0L);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.repository.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class TopItemDto {
+
+    private Long itemId;
+    private String name;
+    private long quantity;
+    private long revenue;
+}
@@ -1,10 +1,14 @@
 package jpabook.jpashop.repository.simplequery;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.persistence.EntityManager;
 import java.util.List;
+import java.util.function.Consumer;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,4 +24,34 @@ public class OrderSimpleQueryRepository {
                                 " join o.delivery d", OrderSimpleQueryDto.class)
                 .getResultList();
     }
+
+    /**
+     * 전체 주문을 List 로 만들지 않고 JDBC 커서(forward-only)로 한 row 씩 읽어서 consumer 에 넘긴다.
+     * fetchSize 만큼씩 DB 에서 가져오고, fetchSize 건마다 영속성 컨텍스트를 비워서 메모리 사용량이 일정하게 유지된다.
+     * 커서가 열려있는 동안 커넥션을 잡고 있어야 하므로 트랜잭션 안에서 호출해야 한다.
+     */
+    public void scrollOrderDtos(int fetchSize, Consumer<OrderSimpleQueryDto> consumer) {
+        ScrollableResults results = em.createQuery(
+                        "select new jpabook.jpashop.repository.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                                " from Order o" +
+                                " join o.member m" +
+                                " join o.delivery d" +
+                                " order by o.id", OrderSimpleQueryDto.class)
+                .unwrap(Query.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        try {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept((OrderSimpleQueryDto) results.get(0));
+                if (++count % fetchSize == 0) {
+                    em.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+    }
 }
@@ -0,0 +1,27 @@
+package jpabook.jpashop.repository.simplequery;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록/검색 API 응답 - order_summary 한 줄
+ * OrderSimpleQueryDto 와 같은 필드에 배송 상태, 주문상품 수, 주문 금액이 추가되어 있다.
+ */
+@Data
+@AllArgsConstructor
+public class OrderSummaryDto {
+
+    private Long orderId;
+    private String name;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private DeliveryStatus deliveryStatus;
+    private Address address;
+    private int lineCount;
+    private int totalPrice;
+}
@@ -0,0 +1,190 @@
+package jpabook.jpashop.repository.simplequery;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.MemberNameIndex;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderSearch;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 목록 조회 모델(order_summary) 저장/갱신/조회
+ * 조회는 조인 없이 order_summary 하나만 읽는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+
+    private static final String SELECT_DTO =
+            "select new jpabook.jpashop.repository.simplequery.OrderSummaryDto(" +
+                    "s.id, s.memberName, s.orderDate, s.status, s.deliveryStatus, s.address, s.lineCount, s.totalPrice)" +
+                    " from OrderSummary s";
+
+    private final EntityManager em;
+    private final MemberNameIndex memberNameIndex;
+
+    // 주문 id 를 그대로 쓰는 엔티티 - persist 로 바로 insert (select 없음)
+    public void save(OrderSummary orderSummary) {
+        em.persist(orderSummary);
+    }
+
+    public int updateStatus(Collection<Long> orderIds, OrderStatus status) {
+        return em.createQuery("update OrderSummary s set s.status = :status, s.updatedAt = :now where s.id in :orderIds")
+                .setParameter("status", status)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    // 배송 상태는 일별 집계와 상관없으므로 updatedAt 은 그대로 둔다.
+    public int updateDeliveryStatus(Collection<Long> orderIds, DeliveryStatus deliveryStatus) {
+        return em.createQuery("update OrderSummary s set s.deliveryStatus = :deliveryStatus where s.id in :orderIds")
+                .setParameter("deliveryStatus", deliveryStatus)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    // 회원 이름 변경 - 그 회원의 주문 전체 (member_id 인덱스)
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName where s.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    public List<OrderSummaryDto> findAll() {
+        return em.createQuery(SELECT_DTO + " order by s.id", OrderSummaryDto.class)
+                .getResultList();
+    }
+
+    /**
+     * 주문 검색 - keyset(커서) 페이징, (orderDate, id) 내림차순
+     * 회원 이름은 MemberNameIndex 로 회원 id 를 찾아서 member_id 로 검색하고, 인덱스를 못 쓰면 like
+     */
+    public List<OrderSummaryDto> findAllByCursor(OrderSearch orderSearch, OrderCursor cursor, int limit) {
+        List<Long> memberIds = StringUtils.hasText(orderSearch.getMemberName())
+                ? memberNameIndex.findMemberIds(orderSearch.getMemberName())
+                : null;
+        if (memberIds != null && memberIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> conditions = new ArrayList<>();
+        if (orderSearch.getOrderStatus() != null) {
+            conditions.add("s.status = :status");
+        }
+        if (memberIds != null) {
+            conditions.add("s.memberId in :memberIds");
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            conditions.add("s.memberName like :name");
+        }
+        if (orderSearch.getMinTotalPrice() != null) {
+            conditions.add("s.totalPrice >= :minTotalPrice");
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            conditions.add("s.totalPrice <= :maxTotalPrice");
+        }
+        if (cursor != null) {
+            conditions.add("(s.orderDate < :cursorDate or (s.orderDate = :cursorDate and s.id < :cursorId))");
+        }
+
+        String jpql = SELECT_DTO +
+                (conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions)) +
+                " order by s.orderDate desc, s.id desc";
+
+        TypedQuery<OrderSummaryDto> query = em.createQuery(jpql, OrderSummaryDto.class)
+                .setMaxResults(limit);
+        if (orderSearch.getOrderStatus() != null) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (memberIds != null) {
+            query.setParameter("memberIds", memberIds);
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query.setParameter("name", "%" + orderSearch.getMemberName() + "%");
+        }
+        if (orderSearch.getMinTotalPrice() != null) {
+            query.setParameter("minTotalPrice", orderSearch.getMinTotalPrice());
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            query.setParameter("maxTotalPrice", orderSearch.getMaxTotalPrice());
+        }
+        if (cursor != null) {
+            query.setParameter("cursorDate", cursor.getOrderDate());
+            query.setParameter("cursorId", cursor.getOrderId());
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 주문 id 범위를 원본 테이블(orders, member, delivery, order_item)에서 다시 만든다.
+     * 범위를 지우고 insert ... select 한번으로 채우므로 row 가 애플리케이션을 거치지 않는다.
+     * updated_at 은 DB 의 current_timestamp 가 아니라 애플리케이션 시계로 넣는다. (집계 갱신 시각과 같은 시계로 비교)
+     */
+    public int rebuildRange(long fromId, long toId) {
+        summaryUpdate("delete from order_summary where order_id between :fromId and :toId")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .executeUpdate();
+        return summaryUpdate(
+                        "insert into order_summary (order_id, member_id, member_name, city, street, zipcode," +
+                                " status, delivery_status, order_date, line_count, total_price, updated_at)" +
+                                " select o.order_id, m.member_id, m.name, d.city, d.street, d.zipcode," +
+                                " o.status, d.status, o.order_date," +
+                                " (select count(*) from order_item oi where oi.order_id = o.order_id), o.total_price, :now" +
+                                " from orders o" +
+                                " join member m on m.member_id = o.member_id" +
+                                " join delivery d on d.delivery_id = o.delivery_id" +
+                                " where o.order_id between :fromId and :toId")
+                .setParameter("fromId", fromId)
+                .setParameter("toId", toId)
+                .setParameter("now", LocalDateTime.now())
+                .executeUpdate();
+    }
+
+    /**
+     * after 이후에 추가/변경된 주문의 주문 일자 (updated_at 인덱스)
+     */
+    @SuppressWarnings("unchecked")
+    public List<LocalDate> findOrderDatesUpdatedAfter(LocalDateTime after) {
+        List<Date> dates = em.createNativeQuery(
+                        "select distinct cast(order_date as date) from order_summary where updated_at > :after")
+                .setParameter("after", after)
+                .getResultList();
+        return dates.stream()
+                .map(Date::toLocalDate)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    // 주문 id 범위 밖의 row (주문이 없으면 전체)
+    public int deleteOutside(Long minId, Long maxId) {
+        if (minId == null) {
+            return summaryUpdate("delete from order_summary").executeUpdate();
+        }
+        return summaryUpdate("delete from order_summary where order_id < :minId or order_id > :maxId")
+                .setParameter("minId", minId)
+                .setParameter("maxId", maxId)
+                .executeUpdate();
+    }
+
+    // order_summary 만 바뀐다고 알려준다. -> 네이티브 쿼리라도 다른 2차 캐시 영역과 쿼리 캐시를 비우지 않는다.
+    private NativeQuery<?> summaryUpdate(String sql) {
+        return em.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(OrderSummary.class);
+    }
+}
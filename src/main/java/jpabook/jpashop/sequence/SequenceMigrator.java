@@ -0,0 +1,106 @@
+package jpabook.jpashop.sequence;
+
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.DatabaseStructure;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔티티 id 시퀀스를 매핑(TunableSequenceGenerator)에 맞춘다.
+ * 기동 시(ddl-auto: none 인 운영 DB 기준)
+ * - 시퀀스가 없으면 테이블 최대 id 뒤에서 시작하도록 만든다. (예전 hibernate_sequence 를 같이 쓰던 Member/Item/Category)
+ * - increment 가 설정과 다르면 pooled 블록이 겹쳐서 id 가 중복될 수 있으므로
+ *   jpashop.sequence.migrate=true 일 때만 다시 맞추고, 아니면 기동을 실패시킨다.
+ * 다시 맞출 때는 다른 인스턴스가 예전 크기로 미리 받아 둔 블록과 겹치지 않도록 다른 인스턴스를 내린 상태에서 실행한다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SequenceMigrator {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceProperties properties;
+
+    @PostConstruct
+    public void migrate() {
+        for (Target target : targets()) {
+            Long increment = currentIncrement(target.sequence);
+            if (increment == null) {
+                long start = nextStart(target);
+                jdbcTemplate.execute("create sequence " + target.sequence + " start with " + start + " increment by " + target.incrementSize);
+                log.info("sequence created. sequence={}, start={}, increment={}", target.sequence, start, target.incrementSize);
+            } else if (increment != target.incrementSize) {
+                if (!properties.isMigrate()) {
+                    throw new IllegalStateException(String.format(
+                            "시퀀스 increment 가 설정과 다릅니다. sequence=%s, db=%d, 설정=%d (jpashop.sequence.migrate=true 로 한 번 실행해서 맞추세요)",
+                            target.sequence, increment, target.incrementSize));
+                }
+                restart(target);
+            }
+        }
+    }
+
+    /**
+     * 모든 시퀀스를 테이블 최대 id 뒤로 다시 맞춘다. (JDBC 로 id 를 직접 넣은 뒤 - BulkDataGenerator)
+     */
+    public void realign() {
+        targets().forEach(this::restart);
+    }
+
+    private void restart(Target target) {
+        long start = nextStart(target);
+        jdbcTemplate.execute("alter sequence " + target.sequence + " restart with " + start + " increment by " + target.incrementSize);
+        log.info("sequence restarted. sequence={}, start={}, increment={}", target.sequence, start, target.incrementSize);
+    }
+
+    // pooled 는 첫 조회 값에서 increment 만큼 앞부터 쓰므로 최대 id + increment 보다 크게 시작해야 안 겹친다.
+    private long nextStart(Target target) {
+        Long max = jdbcTemplate.queryForObject("select max(" + target.idColumn + ") from " + target.table, Long.class);
+        return (max == null ? 0 : max) + target.incrementSize + 1;
+    }
+
+    private Long currentIncrement(String sequence) {
+        List<Object> increments = jdbcTemplate.queryForList(
+                "select increment from information_schema.sequences where upper(sequence_name) = upper(?)", Object.class, sequence);
+        return increments.isEmpty() ? null : Long.valueOf(increments.get(0).toString());
+    }
+
+    // TunableSequenceGenerator 를 쓰는 엔티티의 (시퀀스, 테이블, id 컬럼) - 상속(Item)은 루트 엔티티 하나만
+    private List<Target> targets() {
+        Map<String, Target> targets = new LinkedHashMap<>();
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            if (!(persister.getIdentifierGenerator() instanceof TunableSequenceGenerator)
+                    || !persister.getEntityName().equals(persister.getRootEntityName())) {
+                continue;
+            }
+            DatabaseStructure structure = ((SequenceStyleGenerator) persister.getIdentifierGenerator()).getDatabaseStructure();
+            AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+            targets.putIfAbsent(structure.getName(), new Target(structure.getName(), entityPersister.getTableName(),
+                    entityPersister.getIdentifierColumnNames()[0], structure.getIncrementSize()));
+        }
+        return new ArrayList<>(targets.values());
+    }
+
+    @AllArgsConstructor
+    private static class Target {
+        private final String sequence;
+        private final String table;
+        private final String idColumn;
+        private final int incrementSize;
+    }
+}
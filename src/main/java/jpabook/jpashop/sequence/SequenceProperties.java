@@ -0,0 +1,38 @@
+package jpabook.jpashop.sequence;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 엔티티 id 시퀀스 설정 (jpashop.sequence.*) - TunableSequenceGenerator
+ */
+@Component
+@ConfigurationProperties(prefix = "jpashop.sequence")
+@Getter @Setter
+public class SequenceProperties {
+
+    private int incrementSize = 50; // 시퀀스 한 번 조회로 메모리에서 나눠주는 id 수
+    private String optimizer = "pooled"; // pooled / pooled-lo / none
+
+    /**
+     * 시퀀스별 설정 (키 = 시퀀스 이름, yml 에서는 [orders_seq] 처럼 대괄호로 감싼다)
+     */
+    private Map<String, Sequence> sequences = new HashMap<>();
+
+    /**
+     * DB 시퀀스의 increment 가 설정과 다를 때 기동 시 시퀀스를 다시 맞출지 (SequenceMigrator)
+     * false 면 기동을 실패시킨다. 크기를 바꾼 뒤 인스턴스 하나로 한 번만 true 로 실행한다.
+     */
+    private boolean migrate = false;
+
+    @Getter @Setter
+    public static class Sequence {
+        private Integer incrementSize;
+        private String optimizer;
+    }
+}
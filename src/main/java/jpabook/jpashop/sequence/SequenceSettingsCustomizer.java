@@ -0,0 +1,34 @@
+package jpabook.jpashop.sequence;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * jpashop.sequence.* 설정을 하이버네이트 설정으로 넘긴다. -> TunableSequenceGenerator 가 읽는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceSettingsCustomizer implements HibernatePropertiesCustomizer {
+
+    private final SequenceProperties properties;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        put(hibernateProperties, TunableSequenceGenerator.DEFAULT_KEY, properties.getIncrementSize(), properties.getOptimizer());
+        properties.getSequences().forEach((sequence, setting) ->
+                put(hibernateProperties, sequence, setting.getIncrementSize(), setting.getOptimizer()));
+    }
+
+    private static void put(Map<String, Object> hibernateProperties, String key, Integer incrementSize, String optimizer) {
+        String prefix = TunableSequenceGenerator.SETTING_PREFIX + key + ".";
+        if (incrementSize != null) {
+            hibernateProperties.put(prefix + TunableSequenceGenerator.INCREMENT_SIZE, String.valueOf(incrementSize));
+        }
+        if (optimizer != null) {
+            hibernateProperties.put(prefix + TunableSequenceGenerator.OPTIMIZER, optimizer);
+        }
+    }
+}
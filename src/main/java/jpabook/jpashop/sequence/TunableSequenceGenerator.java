@@ -0,0 +1,58 @@
+package jpabook.jpashop.sequence;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * 시퀀스별로 할당 크기(increment_size)와 optimizer 를 설정에서 읽는 시퀀스 생성기
+ * 엔티티에는 시퀀스 이름만 적고, 크기/optimizer 는 jpashop.sequence.* (SequenceProperties) 로 바꾼다.
+ * - pooled    : DB 시퀀스 값이 블록의 끝. increment_size 만큼 메모리에서 id 를 나눠주고 다 쓰면 시퀀스를 한 번 더 조회
+ * - pooled-lo : DB 시퀀스 값이 블록의 시작. 동작은 pooled 와 같고, 다른 시스템이 시퀀스 값을 그대로 id 로 써도 겹치지 않는다.
+ * - none      : insert 마다 시퀀스 조회 (예전 @GeneratedValue 와 같음, 비교용)
+ * DB 시퀀스의 increment 는 increment_size 와 같아야 한다. 크기를 바꾸면 SequenceMigrator 로 시퀀스를 맞춘다.
+ */
+public class TunableSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String STRATEGY = "jpabook.jpashop.sequence.TunableSequenceGenerator";
+
+    static final String SETTING_PREFIX = "jpashop.sequence.";
+    static final String DEFAULT_KEY = "default";
+    static final String INCREMENT_SIZE = "increment_size";
+    static final String OPTIMIZER = "optimizer";
+
+    private static final Set<String> OPTIMIZERS = Set.of("pooled", "pooled-lo", "none");
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+        String sequence = params.getProperty(SEQUENCE_PARAM);
+
+        String optimizer = setting(settings, sequence, OPTIMIZER, params.getProperty(OPT_PARAM, "pooled"));
+        if (!OPTIMIZERS.contains(optimizer)) {
+            throw new MappingException("지원하지 않는 optimizer 입니다. sequence=" + sequence + ", optimizer=" + optimizer + ", 지원=" + OPTIMIZERS);
+        }
+        String incrementSize = "none".equals(optimizer)
+                ? "1"
+                : setting(settings, sequence, INCREMENT_SIZE, params.getProperty(INCREMENT_PARAM, "50"));
+
+        params.setProperty(OPT_PARAM, optimizer);
+        params.setProperty(INCREMENT_PARAM, incrementSize);
+        super.configure(type, params, serviceRegistry);
+    }
+
+    // 시퀀스별 설정 -> 기본 설정 -> 엔티티 매핑 값 순서
+    private static String setting(Map<?, ?> settings, String sequence, String name, String fallback) {
+        Object value = settings.get(SETTING_PREFIX + sequence + "." + name);
+        if (value == null) {
+            value = settings.get(SETTING_PREFIX + DEFAULT_KEY + "." + name);
+        }
+        return value == null ? fallback : value.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 취소 결과 - 주문별 성공/실패
+ */
+@Getter
+public class BulkCancelResult {
+
+    private int cancelledCount;
+    private int failedCount;
+    private long elapsedMillis;
+    private final List<OrderResult> orders = new ArrayList<>();
+
+    void add(List<OrderResult> results, long elapsedMillis) {
+        for (OrderResult result : results) {
+            orders.add(result);
+            if (result.isSuccess()) {
+                cancelledCount++;
+            } else {
+                failedCount++;
+            }
+        }
+        this.elapsedMillis += elapsedMillis;
+    }
+
+    @Getter
+    public static class OrderResult {
+        private final Long orderId;
+        private final boolean success;
+        private final String message;
+
+        static OrderResult success(Long orderId) {
+            return new OrderResult(orderId, null);
+        }
+
+        static OrderResult fail(Long orderId, String message) {
+            return new OrderResult(orderId, message);
+        }
+
+        private OrderResult(Long orderId, String message) {
+            this.orderId = orderId;
+            this.success = message == null;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 주문 결과 - 배치(트랜잭션) 단위 처리량 리포트
+ */
+@Getter
+public class BulkOrderResult {
+
+    private int orderCount;
+    private int failedOrderCount;
+    private long elapsedMillis;
+    private final List<BatchResult> batches = new ArrayList<>();
+
+    void add(BatchResult batch) {
+        batches.add(batch);
+        if (batch.isSuccess()) {
+            orderCount += batch.getOrderCount();
+        } else {
+            failedOrderCount += batch.getOrderCount();
+        }
+        elapsedMillis += batch.getElapsedMillis();
+    }
+
+    @Getter
+    public static class BatchResult {
+        private final int batch;
+        private final int orderCount;
+        private final int orderItemCount;
+        private final long elapsedMillis;
+        private final double ordersPerSecond;
+        private final boolean success;
+        private final String message;
+        private final List<Long> orderIds;
+
+        BatchResult(int batch, int orderCount, int orderItemCount, long elapsedMillis, List<Long> orderIds, String message) {
+            this.batch = batch;
+            this.orderCount = orderCount;
+            this.orderItemCount = orderItemCount;
+            this.elapsedMillis = elapsedMillis;
+            this.ordersPerSecond = elapsedMillis == 0 ? orderCount * 1000.0 : orderCount * 1000.0 / elapsedMillis;
+            this.success = message == null;
+            this.message = message;
+            this.orderIds = orderIds;
+        }
+    }
+}
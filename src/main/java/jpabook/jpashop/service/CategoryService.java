@@ -0,0 +1,102 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.CategoryTree;
+import jpabook.jpashop.repository.CategoryTreeSnapshot;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 카테고리 트리
+ * 생성/이동 시 parent_id 와 함께 클로저 테이블(category_closure)과 메모리 트리 스냅샷을 같이 갱신한다.
+ * 카테고리 계층을 바꿀 때는 Category.addChildCategory 를 직접 부르지 말고 이 서비스를 거쳐야 클로저 테이블이 맞는다.
+ * 생성/이동은 먼저 대상 경로의 카테고리 row 를 락으로 잡고(CategoryRepository.lockPaths) 그 다음에 읽고 검사한다.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CategoryService {
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeSnapshot categoryTreeSnapshot;
+
+    @Transactional
+    public Long create(String name, Long parentId) {
+        if (parentId != null) {
+            categoryRepository.lockPaths(List.of(parentId));
+        }
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+
+        categoryRepository.insertSelf(category.getId());
+        if (parentId != null) {
+            categoryRepository.linkSubtree(parentId, category.getId());
+        }
+        categoryTreeSnapshot.putAfterCommit(category.getId(), name, parentId);
+        return category.getId();
+    }
+
+    /**
+     * 하위 트리째로 다른 부모 밑으로 옮긴다. (parentId 가 null 이면 루트로)
+     */
+    @Transactional
+    public void move(Long categoryId, Long parentId) {
+        categoryRepository.lockPaths(parentId == null ? List.of(categoryId) : List.of(categoryId, parentId));
+        Category category = findCategory(categoryId);
+        if (parentId != null && categoryRepository.isDescendant(categoryId, parentId)) {
+            throw new IllegalArgumentException("자기 자신이나 하위 카테고리 밑으로 옮길 수 없습니다.");
+        }
+
+        if (parentId == null) {
+            if (category.getParent() != null) {
+                category.getParent().getChild().remove(category);
+                category.setParent(null);
+            }
+        } else {
+            findCategory(parentId).addChildCategory(category);
+        }
+
+        categoryRepository.unlinkSubtree(categoryId);
+        if (parentId != null) {
+            categoryRepository.linkSubtree(parentId, categoryId);
+        }
+        categoryTreeSnapshot.putAfterCommit(categoryId, category.getName(), parentId);
+    }
+
+    /**
+     * 카테고리와 모든 하위 카테고리의 상품 - 클로저 테이블 조인 한번
+     */
+    public List<Item> findSubtreeItems(Long categoryId, int offset, int limit) {
+        return categoryRepository.findSubtreeItems(categoryId, offset, limit);
+    }
+
+    public CategoryTree getTree() {
+        return categoryTreeSnapshot.get();
+    }
+
+    /**
+     * parent_id 로 클로저 테이블 전체 재생성 + 스냅샷 재생성 (기존 데이터 이관, 대량 데이터 생성 후)
+     */
+    @Transactional
+    public void rebuild() {
+        categoryRepository.rebuildClosure();
+        categoryTreeSnapshot.rebuild();
+    }
+
+    private Category findCategory(Long id) {
+        Category category = categoryRepository.findOne(id);
+        if (category == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + id);
+        }
+        return category;
+    }
+}
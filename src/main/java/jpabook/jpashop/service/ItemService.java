@@ -1,7 +1,10 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.outbox.OutboxEvents;
+import jpabook.jpashop.repository.CatalogSnapshot;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.service.stock.StockLedger;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,10 +17,22 @@ import java.util.List;
 public class ItemService {
 
     private final ItemRepository itemRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final OutboxEvents outboxEvents;
+    private final StockLedger stockLedger;
 
     @Transactional // 클레스에 readOnly 선언해서 따로 설정 안해주면 저장 안됨.
     public void saveItem(Item item){
+        boolean created = item.getId() == null;
+        if (!created) {
+            stockLedger.flush(); // merge 는 재고도 덮어쓴다. -> 원장에 쌓인 증감량을 먼저 반영
+        }
         itemRepository.save(item);
+        outboxEvents.itemSaved(item, created);
+        catalogSnapshot.putItemAfterCommit(item.getId(), item.getName());
+        if (!created) {
+            stockLedger.invalidateAfterCommit(item.getId());
+        }
     }
 
     public List<Item > findItems(){
@@ -30,8 +45,12 @@ public class ItemService {
 
     @Transactional
     public void updateItem(Long id, String name, int price) {
+        stockLedger.flush(); // 변경 감지 UPDATE 는 읽은 재고도 같이 쓴다. -> 원장에 쌓인 증감량을 먼저 반영하고 읽는다.
         Item item = itemRepository.findOne(id);
         item.setName(name);
         item.setPrice(price);
+        outboxEvents.itemSaved(item, false);
+        catalogSnapshot.putItemAfterCommit(id, name);
+        stockLedger.invalidateAfterCommit(id);
     }
 }
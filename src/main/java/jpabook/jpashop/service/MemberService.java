@@ -1,9 +1,15 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.CatalogSnapshot;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,23 +22,45 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
+    private final CatalogSnapshot catalogSnapshot;
+    private final OrderSummaryRepository orderSummaryRepository;
 
     // 회원 가입
     @Transactional
     public Long join(Member member){
-        validateDuplicateMember(member);
-        memberRepository.save(member);
+        validateDuplicateMember(member.getName());
+        try {
+            memberRepository.saveAndFlush(member);
+        } catch (DataIntegrityViolationException e) {
+            // 동시에 같은 이름으로 가입하면 둘 다 검사를 통과할 수 있다. -> 최종 판단은 DB 유니크 제약
+            throw translateDuplicate(e);
+        }
+        memberNameFilter.put(member.getName());
+        memberNameIndex.putAfterCommit(member.getId(), member.getName());
+        catalogSnapshot.putMemberAfterCommit(member.getId(), member.getName());
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member) {
-        //멤버 수를 세서 0이 아니면 exception 날릴 수도 있음.
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if(!findMembers.isEmpty()){
+    private void validateDuplicateMember(String name) {
+        // 블룸 필터에 없으면 확실히 없는 이름 -> DB 조회 생략
+        if (memberNameFilter.mightContain(name) && memberRepository.existsByName(name)) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    private RuntimeException translateDuplicate(DataIntegrityViolationException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ConstraintViolationException) {
+            String constraintName = ((ConstraintViolationException) cause).getConstraintName();
+            if (constraintName != null && constraintName.toLowerCase().contains("uk_member_name")) {
+                return new IllegalStateException("이미 존재하는 회원입니다.", e);
+            }
+        }
+        return e;
+    }
+
     // 회원 전체 조회
     public List<Member> findMembers(){
         return memberRepository.findAll();
@@ -45,7 +73,23 @@ public class MemberService {
 
     @Transactional
     public void update(Long id, String name) {
+        if (name == null) {
+            throw new IllegalArgumentException("회원 이름은 필수 입니다.");
+        }
         Member member = memberRepository.findOne(id);
+        if (!name.equals(member.getName())) {
+            validateDuplicateMember(name);
+            orderSummaryRepository.updateMemberName(id, name); // 주문 목록 조회 모델의 회원 이름
+        }
         member.setName(name);
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            // 동시에 같은 이름으로 바꾸면 둘 다 검사를 통과할 수 있다. -> join 과 같이 DB 유니크 제약으로 판단
+            throw translateDuplicate(e);
+        }
+        memberNameFilter.put(name);
+        memberNameIndex.putAfterCommit(id, name);
+        catalogSnapshot.putMemberAfterCommit(id, name);
     }
 }
@@ -0,0 +1,69 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.service.BulkCancelResult.OrderResult;
+import jpabook.jpashop.service.BulkOrderResult.BatchResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 대량 주문/취소
+ * 요청을 batchSize 건씩 나눠서 배치마다 하나의 트랜잭션으로 처리한다.
+ * 배치 하나가 실패해도(재고 부족 등) 해당 배치만 롤백되고 나머지 배치는 계속 처리한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderBulkService {
+
+    private final OrderFacade orderFacade;
+    private final OrderService orderService;
+
+    @Value("${jpashop.order.bulk-batch-size:100}")
+    private int batchSize;
+
+    @Value("${jpashop.order.bulk-cancel-batch-size:1000}")
+    private int cancelBatchSize;
+
+    public BulkOrderResult order(List<OrderRequest> requests) {
+        BulkOrderResult result = new BulkOrderResult();
+        for (int from = 0, batch = 1; from < requests.size(); from += batchSize, batch++) {
+            List<OrderRequest> chunk = requests.subList(from, Math.min(from + batchSize, requests.size()));
+            int orderItemCount = chunk.stream().mapToInt(r -> r.getLines().size()).sum();
+
+            long start = System.currentTimeMillis();
+            try {
+                List<Long> orderIds = orderFacade.orderBatch(chunk);
+                result.add(new BatchResult(batch, chunk.size(), orderItemCount, System.currentTimeMillis() - start, orderIds, null));
+            } catch (RuntimeException e) {
+                log.warn("bulk order batch failed. batch={}, orders={}", batch, chunk.size(), e);
+                result.add(new BatchResult(batch, chunk.size(), orderItemCount, System.currentTimeMillis() - start, Collections.emptyList(), e.getMessage()));
+            }
+        }
+        return result;
+    }
+
+    public BulkCancelResult cancel(List<Long> orderIds) {
+        List<Long> ids = orderIds.stream().distinct().collect(Collectors.toList());
+        BulkCancelResult result = new BulkCancelResult();
+        for (int from = 0; from < ids.size(); from += cancelBatchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + cancelBatchSize, ids.size()));
+
+            long start = System.currentTimeMillis();
+            try {
+                result.add(orderService.cancelOrders(chunk), System.currentTimeMillis() - start);
+            } catch (RuntimeException e) {
+                log.warn("bulk cancel batch failed. orders={}", chunk.size(), e);
+                result.add(chunk.stream()
+                        .map(id -> OrderResult.fail(id, e.getMessage()))
+                        .collect(Collectors.toList()), System.currentTimeMillis() - start);
+            }
+        }
+        return result;
+    }
+}
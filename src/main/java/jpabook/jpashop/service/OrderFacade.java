@@ -0,0 +1,66 @@
+package jpabook.jpashop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 주문/취소 진입점
+ * 낙관적 락 충돌은 트랜잭션 커밋 시점에 발생하므로 트랜잭션 바깥(OrderService 호출부)에서 재시도해야 한다.
+ * 정해진 횟수(jpashop.stock.max-retry)까지만 재시도하고, 그래도 실패하면 예외를 그대로 던진다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderFacade {
+
+    private final OrderService orderService;
+
+    @Value("${jpashop.stock.max-retry:30}")
+    private int maxRetry;
+
+    public Long order(Long memberId, Long itemId, int count){
+        return retry(() -> orderService.order(memberId, itemId, count));
+    }
+
+    public List<Long> orderBatch(List<OrderRequest> requests){
+        return retry(() -> orderService.orderBatch(requests));
+    }
+
+    public void cancelOrder(Long orderId){
+        retry(() -> {
+            orderService.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    private <T> T retry(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxRetry) {
+                    throw e;
+                }
+                log.debug("stock version conflict, retry attempt={}", attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    // 같이 충돌한 트랜잭션끼리 동시에 재시도하지 않도록 랜덤하게 조금씩 늦춘다.
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(Math.min(attempt, 10) * 5 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("주문 재시도 중 인터럽트 되었습니다.", e);
+        }
+    }
+}
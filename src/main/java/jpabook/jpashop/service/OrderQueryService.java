@@ -0,0 +1,31 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.simplequery.OrderSimpleQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+
+/**
+ * 화면/API 조회 전용 서비스
+ * 핵심 비즈니스 로직(OrderService)과 조회 로직을 분리한다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderQueryService {
+
+    private static final int STREAM_FETCH_SIZE = 1000; // 커서로 한번에 가져오는 row 수 = 영속성 컨텍스트 clear 주기
+
+    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+
+    /**
+     * 전체 주문 스트리밍 조회
+     * StreamingResponseBody 는 요청 스레드가 아닌 별도 스레드에서 실행되므로 여기서 트랜잭션(커넥션)을 잡고 커서를 끝까지 읽는다.
+     */
+    public void streamOrderDtos(Consumer<OrderSimpleQueryDto> consumer) {
+        orderSimpleQueryRepository.scrollOrderDtos(STREAM_FETCH_SIZE, consumer);
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 여러 상품을 한번에 주문할 때 사용하는 주문 요청 (회원 1명 + 주문상품 N개)
+ */
+@Getter @Setter
+public class OrderRequest {
+
+    @NotNull
+    private Long memberId;
+
+    @NotEmpty
+    @Valid
+    private List<OrderLine> lines = new ArrayList<>();
+
+    @Getter @Setter
+    public static class OrderLine {
+        @NotNull
+        private Long itemId;
+        @Min(1)
+        private int count;
+    }
+}
@@ -1,19 +1,30 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.outbox.OutboxEvents;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderListDto;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import jpabook.jpashop.service.BulkCancelResult.OrderResult;
+import jpabook.jpashop.service.stock.StockService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -24,6 +35,9 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final OutboxEvents outboxEvents;
+    private final OrderSummaryRepository orderSummaryRepository;
 
     /**
      * 주문
@@ -31,23 +45,25 @@ public class OrderService {
      */
     @Transactional
     public Long order(Long memberId, Long itemId, int count){
+        checkCount(itemId, count); // 0 이하 수량은 재고를 늘린다.
 
         //엔티티 조회
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
 
         // 배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress()); //예제기 때문에 간단하게 처리 (배송 주소 = 주문자의 주소)
 
-        // 주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        // 주문상품 생성 - 재고 차감은 동시성 제어 방식(StockStrategy)에 따라 StockService 에서 처리
+        OrderItem orderItem = stockService.createOrderItem(itemId, count);
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
         // 주문 저장
         orderRepository.save(order);
+        outboxEvents.orderPlaced(order); // 같은 트랜잭션에서 아웃박스에 기록 - 주문이 롤백되면 이벤트도 없다.
+        orderSummaryRepository.save(OrderSummary.of(order)); // 목록 조회 모델도 같은 트랜잭션에서
         // casecade 옵션 덕분에 Delivery와 OrderItem을 따로 persist 안하고 자동으로 persist 됨 -> 트랜잭션이 커밋되는 시점에 flush가 일어나며 쿼리가 날라감
         // Delivery와 OrderItem을 Order에서만 참조해서 쓰기 때문에 casecade를 사용했지만
         // Delivery와 OrderItem을 여러군데에서 참조해서 사용할 경우 casecade 사용하지말고 별도의 repository를 생성해서 persist 해주는게 좋다
@@ -56,20 +72,123 @@ public class OrderService {
     }
 //    주문( order() ): 주문하는 회원 식별자, 상품 식별자, 주문 수량 정보를 받아서 실제 주문 엔티티를 생성한 후 저장한다.
 
+    /**
+     * 여러 건 주문 (주문 하나에 여러 상품)
+     * 회원, 상품은 주문마다 조회하지 않고 IN 쿼리로 한번에 조회한다.
+     * insert 는 커밋 시점에 hibernate.jdbc.batch_size 단위로 JDBC 배치 처리되고, id 는 pooled 시퀀스로 미리 할당받아 쓴다.
+     */
+    @Transactional
+    public List<Long> orderBatch(List<OrderRequest> requests){
+        if (requests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Member> members = memberRepository.findAllById(
+                        requests.stream().map(OrderRequest::getMemberId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Member::getId, m -> m));
+        Map<Long, Item> items = stockService.findItems(
+                requests.stream()
+                        .flatMap(r -> r.getLines().stream())
+                        .map(OrderRequest.OrderLine::getItemId)
+                        .collect(Collectors.toSet()));
+
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            Member member = members.get(request.getMemberId());
+            if (member == null) {
+                throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + request.getMemberId());
+            }
+
+            if (request.getLines().isEmpty()) {
+                throw new IllegalArgumentException("주문상품이 없습니다. memberId=" + request.getMemberId());
+            }
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+
+            OrderItem[] orderItems = request.getLines().stream()
+                    .map(line -> {
+                        Item item = items.get(line.getItemId());
+                        if (item == null) {
+                            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + line.getItemId());
+                        }
+                        checkCount(line.getItemId(), line.getCount());
+                        return stockService.createOrderItem(item, line.getCount());
+                    })
+                    .toArray(OrderItem[]::new);
+
+            Order order = Order.createOrder(member, delivery, orderItems);
+            orderRepository.save(order);
+            outboxEvents.orderPlaced(order);
+            orderSummaryRepository.save(OrderSummary.of(order));
+            orders.add(order);
+        }
+
+        return orders.stream()
+                .map(Order::getId)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 취소
      */
 
     @Transactional
     public void cancelOrder(Long orderId){
-        // 주문 엔티티 조회
-        Order order = orderRepository.findOne(orderId);
-        // 주문 취소소
-       order.cancel();
+        // 주문 엔티티 조회 - 락을 잡은 뒤에 주문/배송 상태를 확인한다. (동시 취소, 배송 완료 반영)
+        Order order = orderRepository.findOneForUpdate(orderId);
+        if (order.getStatus() == OrderStatus.CANCEL) {
+            throw new IllegalStateException("이미 취소된 주문입니다.");
+        }
+        // 주문 취소소 - 재고 원복은 StockService 에서 처리
+       stockService.cancel(order);
+       outboxEvents.orderCancelled(order);
+       orderSummaryRepository.updateStatus(List.of(orderId), OrderStatus.CANCEL);
 
        // JPA의 장점 - 더티 체크를 통해 변동이 있는 부분에 대한 쿼리가 자동으로 날라간다.
     }
 
+    /**
+     * 대량 취소 - 트랜잭션 하나
+     * 주문+배송 조회, 상태 변경, 상품별 수량 합산은 모두 IN 쿼리 한번씩이고 재고 원복은 상품마다 UPDATE 한번이다.
+     * 없는 주문, 이미 취소된 주문, 배송 완료된 주문은 실패로 남기고 나머지만 취소한다.
+     */
+    @Transactional
+    public List<OrderResult> cancelOrders(List<Long> orderIds){
+        Map<Long, Order> orders = orderRepository.findAllWithDelivery(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, o -> o));
+
+        List<OrderResult> results = new ArrayList<>(orderIds.size());
+        List<Long> cancelIds = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                results.add(OrderResult.fail(orderId, "존재하지 않는 주문입니다."));
+            } else if (order.getStatus() == OrderStatus.CANCEL) {
+                results.add(OrderResult.fail(orderId, "이미 취소된 주문입니다."));
+            } else if (order.getDelivery().getStatus() == DeliveryStatus.COMP) {
+                results.add(OrderResult.fail(orderId, "이미 배송 완료된 상품은 취소가 불가능합니다."));
+            } else {
+                results.add(OrderResult.success(orderId));
+                cancelIds.add(orderId);
+            }
+        }
+        if (cancelIds.isEmpty()) {
+            return results;
+        }
+
+        // 상태를 먼저 바꿔서 행 락을 잡는다. 그 사이 다른 요청에서 취소되거나 배송 완료됐으면 재고를 두 번 돌려주지 않도록 전체 롤백
+        int cancelled = orderRepository.cancelAll(cancelIds);
+        if (cancelled != cancelIds.size()) {
+            throw new IllegalStateException("다른 요청에서 취소되거나 배송 완료된 주문이 있습니다. 다시 시도해 주세요.");
+        }
+        Map<Long, Integer> restocked = orderRepository.sumOrderItemCounts(cancelIds);
+        stockService.restock(restocked);
+        outboxEvents.ordersCancelled(cancelIds, restocked);
+        orderSummaryRepository.updateStatus(cancelIds, OrderStatus.CANCEL);
+        return results;
+    }
+
 //    주문 취소( cancelOrder() ): 주문 식별자를 받아서 주문 엔티티를 조회한 후 주문 엔티티에 주문 취소를 요청한다.
 
     // 검색
@@ -77,6 +196,17 @@ public class OrderService {
         return orderRepository.findAllByString(orderSearch);
     }
 
+    // 주문 목록 화면 - offset 페이징, DTO 조회
+    public List<OrderListDto> findOrderList(OrderSearch orderSearch, int offset, int limit){
+        return orderRepository.findOrderList(orderSearch, offset, limit);
+    }
+
+    private static void checkCount(Long itemId, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("주문 수량은 1 이상이어야 합니다. itemId=" + itemId + ", count=" + count);
+        }
+    }
+
 //    주문 검색( findOrders() ): OrderSearch 라는 검색 조건을 가진 객체로 주문 엔티티를 검색한다.
 //    자세한 내용은 다음에 나오는 주문 검색 기능에서 알아보자.
 
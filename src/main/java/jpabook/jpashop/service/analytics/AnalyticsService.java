@@ -0,0 +1,63 @@
+package jpabook.jpashop.service.analytics;
+
+import jpabook.jpashop.domain.DailyOrderStats;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.analytics.AnalyticsRepository;
+import jpabook.jpashop.repository.analytics.CityRevenueDto;
+import jpabook.jpashop.repository.analytics.DailyOrderCountDto;
+import jpabook.jpashop.repository.analytics.TopItemDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 매출/주문 분석 - 기간은 주문 일자 기준 [from, to] (양 끝 포함)
+ * 상품/일별/도시별 집계는 일별 집계 테이블에서 읽으므로 최대 jpashop.analytics.rollup-interval 만큼 늦게 반영된다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class AnalyticsService {
+
+    private final AnalyticsRepository analyticsRepository;
+    private final OrderValueAggregator orderValueAggregator;
+
+    public List<TopItemDto> findTopItems(LocalDate from, LocalDate to, int limit) {
+        return analyticsRepository.findTopItems(from, to, limit);
+    }
+
+    /**
+     * 날짜별로 주문 상태별 주문 수를 모은다. 주문이 없는 날짜는 빠진다.
+     */
+    public List<DailyOrderCountDto> findDailyOrderCounts(LocalDate from, LocalDate to) {
+        Map<LocalDate, DailyOrderCountDto> days = new TreeMap<>();
+        for (DailyOrderStats stats : analyticsRepository.findDailyOrderStats(from, to)) {
+            DailyOrderCountDto day = days.computeIfAbsent(stats.getId().getSalesDate(), DailyOrderCountDto::new);
+            day.getOrderCounts().put(stats.getId().getStatus(), stats.getOrderCount());
+            if (stats.getId().getStatus() == OrderStatus.ORDER) {
+                day.setRevenue(stats.getRevenue());
+            }
+        }
+        return new ArrayList<>(days.values());
+    }
+
+    public List<CityRevenueDto> findRevenueByCity(LocalDate from, LocalDate to) {
+        return analyticsRepository.findRevenueByCity(from, to);
+    }
+
+    /**
+     * 주문 금액 분포 - 원본(orders)을 바로 집계한다.
+     * 파티션마다 따로 커넥션을 쓰므로 요청 스레드에서는 트랜잭션(커넥션)을 잡지 않는다.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OrderValueStats findOrderValueStats(LocalDate from, LocalDate to) {
+        return orderValueAggregator.aggregate(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+    }
+}
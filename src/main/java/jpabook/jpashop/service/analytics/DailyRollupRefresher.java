@@ -0,0 +1,77 @@
+package jpabook.jpashop.service.analytics;
+
+import jpabook.jpashop.repository.analytics.AnalyticsRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 일별 집계(daily_order_stats, daily_item_sales, daily_city_sales) 증분 갱신
+ * 지난 갱신 이후 추가/취소된 주문의 주문 일자만 order_summary.updated_at 으로 찾아서 그 날짜만 하루씩 다시 계산한다.
+ * (배송 상태 변경은 updated_at 을 바꾸지 않는다. - 집계는 주문 상태, 금액, 배송지 도시만 쓴다.)
+ * 커밋이 늦게 된 주문을 놓치지 않도록 지난 갱신 시각보다 lag 만큼 앞에서부터 찾는다. (같은 날짜를 다시 계산해도 결과는 같다)
+ * updated_at 과 refreshed_at 은 모두 애플리케이션 시계(LocalDateTime.now())로 찍으므로 lag 은 긴 트랜잭션 + 인스턴스 간 시계 차이를 넉넉히 덮어야 한다.
+ * 인스턴스가 여럿이면 하나에서만 켠다. (jpashop.analytics.rollup-enabled)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DailyRollupRefresher {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AnalyticsRepository analyticsRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${jpashop.analytics.rollup-enabled:true}")
+    private boolean enabled;
+
+    @Value("${jpashop.analytics.rollup-lag:900000}")
+    private long lagMillis;
+
+    @Scheduled(fixedDelayString = "${jpashop.analytics.rollup-interval:60000}")
+    public void scheduledRefresh() {
+        if (enabled) {
+            refresh();
+        }
+    }
+
+    /**
+     * 변경된 날짜를 다시 계산하고 그 날짜 수를 반환한다.
+     * 중간에 실패하면 기준 시각을 이번 갱신 전으로 되돌려서 다음 갱신에서 같은 날짜들을 다시 찾게 한다.
+     */
+    public synchronized int refresh() {
+        long start = System.currentTimeMillis();
+        LocalDateTime startedAt = LocalDateTime.now();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        LocalDateTime lastRefreshedAt = tx.execute(status -> analyticsRepository.findLastRefreshedAt());
+        LocalDateTime after = lastRefreshedAt == null ? BEGINNING : lastRefreshedAt.minusNanos(lagMillis * 1_000_000);
+        List<LocalDate> days = tx.execute(status -> orderSummaryRepository.findOrderDatesUpdatedAfter(after));
+
+        for (LocalDate day : days) {
+            try {
+                tx.executeWithoutResult(status -> analyticsRepository.refreshDay(day, startedAt));
+            } catch (RuntimeException e) {
+                log.warn("daily rollup refresh failed. day={}, retry from {}", day, lastRefreshedAt, e);
+                tx.executeWithoutResult(status -> analyticsRepository.resetRefreshedAt(startedAt, lastRefreshedAt == null ? BEGINNING : lastRefreshedAt));
+                throw e;
+            }
+        }
+        if (!days.isEmpty()) {
+            log.info("daily rollup refreshed. days={} ({} ~ {}), elapsed={}ms",
+                    days.size(), days.get(0), days.get(days.size() - 1), System.currentTimeMillis() - start);
+        }
+        return days.size();
+    }
+}
@@ -0,0 +1,119 @@
+package jpabook.jpashop.service.analytics;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 주문 금액 분포(백분위) - SQL 로 할 수 없는 집계
+ * 백분위 함수(percentile_cont 등)는 DB 마다 지원이 달라서 group by 로 밀어 넣지 않고,
+ * 기간 내 주문 id 범위를 fork-join 으로 나눠서 파티션마다 total_price 한 컬럼만 커서로 읽으며 히스토그램(long[])에 센다.
+ * 주문 엔티티나 값 목록을 만들지 않으므로 주문 수와 상관없이 메모리가 일정하고, 파티션 결과는 배열 합으로 합친다.
+ * 파티션은 트랜잭션 없이 각자 커넥션을 쓰므로 parallelism 은 커넥션 풀 크기보다 작게 둔다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderValueAggregator {
+
+    private static final String ID_RANGE_SQL =
+            "select min(order_id) min_id, max(order_id) max_id from orders where order_date >= ? and order_date < ?";
+    private static final String VALUES_SQL =
+            "select total_price from orders" +
+                    " where order_id between ? and ? and order_date >= ? and order_date < ? and status = 'ORDER'";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${jpashop.analytics.parallelism:4}")
+    private int parallelism;
+
+    @Value("${jpashop.analytics.partition-size:50000}")
+    private long partitionSize; // 파티션 하나가 읽는 주문 id 범위
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * [from, to) 주문 일시 기간
+     */
+    public OrderValueStats aggregate(LocalDateTime from, LocalDateTime to) {
+        Timestamp fromTs = Timestamp.valueOf(from);
+        Timestamp toTs = Timestamp.valueOf(to);
+        Map<String, Object> range = jdbcTemplate.queryForMap(ID_RANGE_SQL, fromTs, toTs);
+        Number minId = (Number) range.get("MIN_ID");
+        Number maxId = (Number) range.get("MAX_ID");
+        if (minId == null) {
+            return new OrderValueHistogram().toStats();
+        }
+
+        long start = System.currentTimeMillis();
+        OrderValueHistogram histogram = pool.invoke(new PartitionTask(minId.longValue(), maxId.longValue(), fromTs, toTs));
+        log.debug("order value aggregation. orders={}, id {} ~ {}, elapsed={}ms",
+                histogram.getCount(), minId, maxId, System.currentTimeMillis() - start);
+        return histogram.toStats();
+    }
+
+    private OrderValueHistogram scan(long fromId, long toId, Timestamp from, Timestamp to) {
+        OrderValueHistogram histogram = new OrderValueHistogram();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(VALUES_SQL);
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setLong(1, fromId);
+            ps.setLong(2, toId);
+            ps.setTimestamp(3, from);
+            ps.setTimestamp(4, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> histogram.add(rs.getInt(1)));
+        return histogram;
+    }
+
+    // id 범위를 partitionSize 이하가 될 때까지 반으로 나눈다.
+    private class PartitionTask extends RecursiveTask<OrderValueHistogram> {
+
+        private final long fromId;
+        private final long toId;
+        private final Timestamp from;
+        private final Timestamp to;
+
+        PartitionTask(long fromId, long toId, Timestamp from, Timestamp to) {
+            this.fromId = fromId;
+            this.toId = toId;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected OrderValueHistogram compute() {
+            if (toId - fromId < partitionSize) {
+                return scan(fromId, toId, from, to);
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            PartitionTask left = new PartitionTask(fromId, middle, from, to);
+            left.fork();
+            OrderValueHistogram right = new PartitionTask(middle + 1, toId, from, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
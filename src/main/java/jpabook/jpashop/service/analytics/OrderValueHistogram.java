@@ -0,0 +1,91 @@
+package jpabook.jpashop.service.analytics;
+
+/**
+ * 주문 금액 분포 - 로그 선형 버킷(2 의 거듭제곱 구간마다 32칸) 카운터
+ * 값을 모아두지 않고 long[] 카운트만 올리므로 주문 수와 상관없이 메모리가 일정하고, 파티션별 결과는 배열 더하기로 합친다.
+ * 백분위 오차는 버킷 폭 이내(약 3%)이고 count, sum, min, max 는 정확하다.
+ * 스레드 안전하지 않다. - 파티션(스레드)마다 하나씩 만들고 merge 한다.
+ */
+public class OrderValueHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS; // 32
+    private static final int BUCKETS = bucketOf(Integer.MAX_VALUE) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    public void add(int value) {
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public OrderValueHistogram merge(OrderValueHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    /**
+     * q (0 ~ 1) 백분위 - 해당 버킷의 가운데 값 (min ~ max 안으로 맞춤), 값이 없으면 0
+     */
+    public long percentile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                long middle = (lowerBound(i) + lowerBound(i + 1) - 1) / 2;
+                return Math.max(min, Math.min(max, middle));
+            }
+        }
+        return max;
+    }
+
+    public OrderValueStats toStats() {
+        if (count == 0) {
+            return new OrderValueStats(0, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new OrderValueStats(count, sum, min, max, sum / count,
+                percentile(0.5), percentile(0.9), percentile(0.99));
+    }
+
+    // 0 ~ 31 은 값 그대로, 그 위는 최상위 비트 구간마다 32칸 (음수는 0 으로)
+    static int bucketOf(int value) {
+        if (value < SUB_BUCKETS) {
+            return Math.max(value, 0);
+        }
+        int shift = 31 - Integer.numberOfLeadingZeros(value) - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        return (long) ((bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+    }
+}
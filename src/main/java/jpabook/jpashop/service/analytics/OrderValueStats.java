@@ -0,0 +1,21 @@
+package jpabook.jpashop.service.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 기간 내 주문(취소 제외) 금액 통계 - 백분위는 근사값 (OrderValueHistogram)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderValueStats {
+
+    private final long orderCount;
+    private final long revenue;
+    private final long min;
+    private final long max;
+    private final long average;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+}
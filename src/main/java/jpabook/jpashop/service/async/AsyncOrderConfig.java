@@ -0,0 +1,30 @@
+package jpabook.jpashop.service.async;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 비동기 주문 접수 (jpashop.order.async.enabled=true)
+ * 접수 로그(OrderLog)를 열고, AsyncOrderService / AsyncOrderWorker 가 이 로그를 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.order.async", name = "enabled", havingValue = "true")
+public class AsyncOrderConfig {
+
+    // ticket 은 node 마다 다른 범위에서 준다. (AsyncOrderProperties.nodeId)
+    @Bean(destroyMethod = "close")
+    public OrderLog orderLog(AsyncOrderProperties properties) throws IOException {
+        OrderLog orderLog = new OrderLog(Paths.get(properties.getDirectory()), properties.getSegmentBytes(), properties.isFsync(),
+                properties.ticketBase());
+        if (orderLog.lastTicket() >= properties.ticketLimit()) {
+            orderLog.close();
+            throw new IllegalStateException("order log belongs to another node-id. lastTicket=" + orderLog.lastTicket()
+                    + ", nodeId=" + properties.getNodeId());
+        }
+        return orderLog;
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.service.async;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 비동기 주문 접수 설정 (jpashop.order.async.*)
+ */
+@Component
+@ConfigurationProperties(prefix = "jpashop.order.async")
+@Getter @Setter
+public class AsyncOrderProperties {
+
+    private static final int NODE_SHIFT = 40; // node 하나의 ticket 범위 2^40 - JSON(double)로 내려가도 2^53 을 넘지 않도록 node 는 8191 까지
+    private static final int MAX_NODE_ID = (1 << (53 - NODE_SHIFT)) - 1;
+
+    private boolean enabled = false;
+    private String directory = "./order-queue"; // 접수 로그(OrderLog) 디렉토리
+    private int segmentBytes = 64 * 1024 * 1024; // 세그먼트 파일 하나의 크기
+    private boolean fsync = true; // false 면 OS 가 디스크에 쓰기 전에 서버(OS)가 죽으면 접수된 주문을 잃을 수 있다.
+    private int workers = 2;
+    private int batchSize = 200; // 트랜잭션 하나에 저장하는 최대 주문 수
+    private long pollTimeout = 200; // 접수된 주문이 없을 때 기다리는 시간 (ms)
+    private int maxRetry = 10; // 묶음 저장이 이만큼 실패하면 한 건씩 저장해서 원인이 된 주문만 실패 처리
+    private int nodeId = 0; // 인스턴스마다 다르게 - ticket = nodeId * 2^40 + 접수 로그의 레코드 번호
+
+    /**
+     * 이 인스턴스 ticket 범위의 시작 (ticketBase, ticketBase + 2^40]
+     */
+    public long ticketBase() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("jpashop.order.async.node-id must be between 0 and " + MAX_NODE_ID + ". nodeId=" + nodeId);
+        }
+        return (long) nodeId << NODE_SHIFT;
+    }
+
+    public long ticketLimit() {
+        return ticketBase() + (1L << NODE_SHIFT);
+    }
+}
@@ -0,0 +1,61 @@
+package jpabook.jpashop.service.async;
+
+import jpabook.jpashop.domain.OrderTicket;
+import jpabook.jpashop.repository.OrderTicketRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * 주문 접수 후 비동기 처리 (jpashop.order.async.enabled=true)
+ * 주문은 접수 로그(OrderLog)에 기록만 하고 바로 ticket 을 돌려준다. 저장은 AsyncOrderWorker 가 묶어서 처리한다.
+ * 처리 결과는 ticket 으로 조회한다. (order_ticket 에 없으면 아직 대기 중)
+ * ticket 은 인스턴스(node-id)마다 다른 범위라서 여러 인스턴스가 접수해도 겹치지 않는다. 조회는 접수한 인스턴스에서 한다.
+ */
+@Service
+@ConditionalOnProperty(prefix = "jpashop.order.async", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AsyncOrderService {
+
+    private final OrderLog orderLog;
+    private final OrderTicketRepository orderTicketRepository;
+    private final AsyncOrderProperties properties;
+
+    // 접수 로그를 잃어버렸어도 이미 처리된 ticket 번호를 다시 주지 않도록 - 이 인스턴스(node) 범위 안에서만 본다.
+    @PostConstruct
+    public void alignTickets() {
+        orderLog.ensureTicketsAfter(orderTicketRepository.findMaxId(properties.ticketBase(), properties.ticketLimit()));
+    }
+
+    /**
+     * 주문 접수 - DB 를 거치지 않는다. 회원/상품/재고 확인은 처리할 때 한다.
+     */
+    public long accept(Long memberId, Long itemId, int count) {
+        if (memberId == null || itemId == null || count < 1) {
+            throw new IllegalArgumentException("주문 회원, 상품, 수량(1 이상)을 확인해 주세요.");
+        }
+        return orderLog.append(memberId, itemId, count);
+    }
+
+    /**
+     * 처리 결과 - 없는 ticket 이면 null
+     */
+    public OrderTicket findTicket(long ticket) {
+        OrderTicket orderTicket = orderTicketRepository.findOne(ticket);
+        if (orderTicket != null) {
+            return orderTicket;
+        }
+        if (ticket > properties.ticketBase() && ticket <= orderLog.lastTicket()) {
+            return OrderTicket.queued(ticket, null);
+        }
+        return null;
+    }
+
+    public long queuedCount() {
+        return orderLog.queuedCount();
+    }
+}
@@ -0,0 +1,160 @@
+package jpabook.jpashop.service.async;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.LockTimeoutException;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PessimisticLockException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 접수 로그(OrderLog)를 비우는 워커
+ * 워커마다 쌓인 주문을 batchSize 건까지 꺼내서 트랜잭션 하나로 저장한다.
+ * 앞 묶음을 커밋하는 동안 들어온 주문이 다음 묶음이 되므로, 몰릴수록 커밋 한 번에 많은 주문이 저장된다.
+ * 저장에 실패한 묶음은 같은 워커가 다시 시도한다. (재고 버전 충돌, DB 장애)
+ * max-retry 를 넘기면 한 건씩 저장해서, 일시적인 실패가 아닌 주문(데이터 오류)만 FAILED 로 남긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "jpashop.order.async", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class AsyncOrderWorker {
+
+    private final OrderLog orderLog;
+    private final AsyncOrderWriter asyncOrderWriter;
+    private final AsyncOrderProperties properties;
+
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        AtomicInteger sequence = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(properties.getWorkers(), runnable -> {
+            Thread thread = new Thread(runnable, "async-order-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            executor.execute(this::drain);
+        }
+        log.info("async order workers started. workers={}, queued={}", properties.getWorkers(), orderLog.queuedCount());
+    }
+
+    // 인터럽트하지 않는다. (JDBC 도중 인터럽트 방지) poll-timeout 안에 루프를 빠져나온다.
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("async order workers did not stop in time. unfinished orders are processed after restart.");
+            }
+        }
+    }
+
+    // 로그 읽기/완료 처리가 실패해도(디스크 오류 등) 워커 스레드가 조용히 끝나지 않도록 기록하고 잠시 쉬었다가 계속한다.
+    private void drain() {
+        for (int failures = 0; running; ) {
+            List<QueuedOrder> batch;
+            try {
+                batch = orderLog.poll(properties.getBatchSize(), properties.getPollTimeout());
+                if (!batch.isEmpty()) {
+                    process(batch);
+                }
+                failures = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failures++;
+                log.error("async order worker failed, retry. failures={}", failures, e);
+                backoff(failures);
+            }
+        }
+    }
+
+    private void process(List<QueuedOrder> batch) {
+        for (int attempt = 1; running; attempt++) {
+            try {
+                if (attempt <= properties.getMaxRetry()) {
+                    asyncOrderWriter.write(batch);
+                } else {
+                    writeOneByOne(batch);
+                }
+                orderLog.complete(batch.stream().map(QueuedOrder::getTicket).collect(Collectors.toList()));
+                return;
+            } catch (RuntimeException e) {
+                log.warn("async order batch failed, retry. orders={}, attempt={}", batch.size(), attempt, e);
+                backoff(attempt);
+            }
+        }
+        // 종료 중 - 완료 처리하지 않은 주문은 재기동 후 다시 꺼낸다.
+    }
+
+    // 묶음 안의 한 건 때문에 계속 실패하는 경우 - 그 주문만 실패로 남긴다.
+    private void writeOneByOne(List<QueuedOrder> batch) {
+        for (QueuedOrder queued : batch) {
+            writeOne(queued);
+        }
+    }
+
+    // 재고 버전 충돌, 락 대기, DB 장애 같은 일시적인 실패는 FAILED 로 남기지 않고 될 때까지 다시 시도한다.
+    private void writeOne(QueuedOrder queued) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                asyncOrderWriter.write(List.of(queued));
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    log.warn("async order failed. ticket={}", queued.getTicket(), e);
+                    asyncOrderWriter.fail(queued, "주문을 저장하지 못했습니다. " + e.getMessage());
+                    return;
+                }
+                if (!running) {
+                    throw e; // 종료 중 - 완료 처리하지 않은 주문은 재기동 후 다시 꺼낸다.
+                }
+                log.warn("async order conflicted, retry. ticket={}, attempt={}", queued.getTicket(), attempt, e);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof PessimisticLockException
+                    || cause instanceof LockTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(Math.min(attempt, 20) * 50 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package jpabook.jpashop.service.async;
+
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.OrderTicket;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.outbox.OutboxEvents;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderTicketRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import jpabook.jpashop.service.stock.StockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 접수된 주문 묶음 저장 - 묶음 하나가 트랜잭션 하나 (그룹 커밋)
+ * 회원/상품은 묶음 전체를 IN 쿼리 한번씩으로 조회하고, insert 는 JDBC 배치 + pooled 시퀀스로 처리된다.
+ * 없는 회원/상품, 재고 부족은 해당 주문만 FAILED 티켓으로 남기고 나머지는 그대로 저장한다.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class AsyncOrderWriter {
+
+    private final MemberRepository memberRepository;
+    private final OrderRepository orderRepository;
+    private final OrderTicketRepository orderTicketRepository;
+    private final StockService stockService;
+    private final OutboxEvents outboxEvents;
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    public void write(List<QueuedOrder> batch) {
+        // 커밋 후 checkpoint 를 남기기 전에 재기동되면 같은 주문을 다시 꺼낸다. -> 티켓이 있으면 건너뛴다.
+        Set<Long> done = orderTicketRepository.findExistingIds(
+                batch.stream().map(QueuedOrder::getTicket).collect(Collectors.toList()));
+        List<QueuedOrder> orders = batch.stream()
+                .filter(o -> !done.contains(o.getTicket()))
+                .collect(Collectors.toList());
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Member> members = memberRepository.findAllById(
+                        orders.stream().map(QueuedOrder::getMemberId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Member::getId, m -> m));
+        Map<Long, Item> items = stockService.findItems(
+                orders.stream().map(QueuedOrder::getItemId).collect(Collectors.toSet()));
+
+        for (QueuedOrder queued : orders) {
+            Member member = members.get(queued.getMemberId());
+            Item item = items.get(queued.getItemId());
+            if (member == null) {
+                orderTicketRepository.save(OrderTicket.failed(queued.getTicket(), "존재하지 않는 회원입니다.", acceptedAt(queued)));
+                continue;
+            }
+            if (item == null) {
+                orderTicketRepository.save(OrderTicket.failed(queued.getTicket(), "존재하지 않는 상품입니다.", acceptedAt(queued)));
+                continue;
+            }
+
+            OrderItem orderItem = stockService.tryCreateOrderItem(item, queued.getCount());
+            if (orderItem == null) {
+                orderTicketRepository.save(OrderTicket.failed(queued.getTicket(), "재고가 부족합니다.", acceptedAt(queued)));
+                continue;
+            }
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            Order order = Order.createOrder(member, delivery, orderItem);
+            orderRepository.save(order);
+            outboxEvents.orderPlaced(order);
+            orderSummaryRepository.save(OrderSummary.of(order));
+            orderTicketRepository.save(OrderTicket.ordered(queued.getTicket(), order.getId(), acceptedAt(queued)));
+        }
+    }
+
+    /**
+     * 저장할 수 없는 주문 - 실패 티켓만 남긴다.
+     */
+    public void fail(QueuedOrder queued, String message) {
+        if (orderTicketRepository.findOne(queued.getTicket()) == null) {
+            orderTicketRepository.save(OrderTicket.failed(queued.getTicket(), message, acceptedAt(queued)));
+        }
+    }
+
+    private static LocalDateTime acceptedAt(QueuedOrder queued) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(queued.getAcceptedAt()), ZoneId.systemDefault());
+    }
+}
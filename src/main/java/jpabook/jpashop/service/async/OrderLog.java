@@ -0,0 +1,447 @@
+package jpabook.jpashop.service.async;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 비동기 주문 접수 로그 - 메모리 맵 파일에 고정 길이 레코드를 순서대로 덧붙이는 디스크 큐
+ * ticket 은 base + 1 부터 1씩 증가하는 레코드 번호라서 ticket 만으로 세그먼트 파일과 위치가 정해진다.
+ * - base: 인스턴스(node)마다 다른 ticket 범위의 시작. 여러 인스턴스가 같은 order_ticket 테이블을 써도 번호가 겹치지 않는다.
+ * - 세그먼트: {첫 ticket}.log, 꽉 차면 다음 파일로 넘어간다. 처리가 끝난 세그먼트는 지운다.
+ * - 레코드: ticket, memberId, itemId, count, acceptedAt, crc32 (40 byte) - 기록 중에 죽어서 잘린 레코드는 crc 로 걸러낸다.
+ * - fsync=true 면 force 된 레코드만 접수 완료(append 반환) 및 꺼내기(poll) 대상이 된다.
+ *   force 는 그 사이에 들어온 레코드를 한 번에 반영하므로 동시 접수가 많을수록 접수당 force 횟수가 줄어든다. (그룹 커밋)
+ * - checkpoint: 여기까지의 ticket 은 모두 처리 완료. 재기동 시 checkpoint 다음부터 다시 꺼낸다.
+ *   checkpoint 는 평소에는 force 하지 않는다. 유실되면 조금 앞부터 다시 꺼내게 되고, 이미 처리된 ticket 은 order_ticket 으로 걸러진다.
+ *   세그먼트를 지우기 전에는 force 한다. - 디스크의 checkpoint 가 지운 세그먼트보다 앞이면 재기동 후 꺼낼 레코드가 없다.
+ */
+@Slf4j
+public class OrderLog implements Closeable {
+
+    static final int RECORD_SIZE = 40;
+    private static final int PAYLOAD_SIZE = RECORD_SIZE - Integer.BYTES;
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentCapacity; // 새 세그먼트의 레코드 수
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition readable = lock.newCondition();
+    private final Object syncLock = new Object();
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>(); // 첫 ticket -> 세그먼트
+    private final NavigableSet<Long> completed = new TreeSet<>(); // checkpoint 뒤에서 먼저 처리가 끝난 ticket
+    private final FileChannel checkpointChannel;
+
+    private long nextTicket; // 다음에 줄 ticket
+    private long readTicket; // 다음에 꺼낼 ticket
+    private long checkpoint;
+    private volatile long written; // 마지막으로 기록한 ticket
+    private volatile long synced; // 마지막으로 force 된 ticket
+
+    public OrderLog(Path directory, int segmentBytes, boolean fsync) throws IOException {
+        this(directory, segmentBytes, fsync, 0);
+    }
+
+    public OrderLog(Path directory, int segmentBytes, boolean fsync, long base) throws IOException {
+        this.directory = directory;
+        this.segmentCapacity = Math.max(1, segmentBytes / RECORD_SIZE);
+        this.fsync = fsync;
+
+        Files.createDirectories(directory);
+        checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        checkpoint = readCheckpoint();
+        if (checkpoint == 0) {
+            checkpoint = base;
+        } else if (checkpoint < base) {
+            // 다른 범위에서 쓰던 로그 - 처리 안된 세그먼트를 지우지 않도록 열지 않는다.
+            checkpointChannel.close();
+            throw new IllegalStateException("order log ticket range mismatch. checkpoint=" + checkpoint + ", base=" + base);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                long first = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(first, Segment.open(file, first, segmentCapacity));
+            }
+        }
+
+        // 마지막 세그먼트에서 온전히 기록된 레코드 다음부터 이어서 쓴다.
+        nextTicket = checkpoint + 1;
+        if (!segments.isEmpty()) {
+            Segment last = segments.lastEntry().getValue();
+            nextTicket = Math.max(nextTicket, last.first + last.recoverCount());
+        }
+        written = nextTicket - 1;
+        synced = written;
+        readTicket = checkpoint + 1;
+        deleteConsumedSegments();
+        log.info("order log opened. directory={}, checkpoint={}, queued={}", directory, checkpoint, written - checkpoint);
+    }
+
+    /**
+     * 주문 접수 - 디스크에 기록(fsync=true 면 force 까지)한 뒤 ticket 을 돌려준다.
+     */
+    public long append(long memberId, long itemId, int count) {
+        long ticket;
+        lock.lock();
+        try {
+            ticket = nextTicket;
+            segmentFor(ticket, true).write(ticket, memberId, itemId, count, System.currentTimeMillis());
+            nextTicket++;
+            written = ticket;
+            if (!fsync) {
+                readable.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (fsync) {
+            sync(ticket);
+        }
+        return ticket;
+    }
+
+    /**
+     * 처리할 주문을 최대 max 건 꺼낸다. 없으면 timeout 까지 기다렸다가 빈 목록
+     * 꺼낸 주문은 complete 로 처리 완료를 알려야 checkpoint 가 넘어간다. (재기동 전까지 다시 꺼내지 않는다)
+     */
+    public List<QueuedOrder> poll(int max, long timeoutMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            while (readTicket > readableTicket()) {
+                if (remaining <= 0) {
+                    return new ArrayList<>();
+                }
+                remaining = readable.awaitNanos(remaining);
+            }
+
+            long end = Math.min(readableTicket(), readTicket + Math.max(max, 1) - 1);
+            List<QueuedOrder> result = new ArrayList<>((int) (end - readTicket + 1));
+            List<Long> broken = new ArrayList<>();
+            for (long ticket = readTicket; ticket <= end; ticket++) {
+                QueuedOrder order = segmentFor(ticket, false).read(ticket);
+                if (order == null) {
+                    broken.add(ticket); // 기록되지 않은 자리 (ensureTicketsAfter 로 건너뛴 구간)
+                } else {
+                    result.add(order);
+                }
+            }
+            readTicket = end + 1;
+            if (!broken.isEmpty()) {
+                log.warn("order log skipped unreadable records. tickets={}", broken);
+                complete(broken);
+            }
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 처리 완료 - 앞의 ticket 이 모두 끝난 만큼 checkpoint 를 넘기고, 다 처리된 세그먼트는 지운다.
+     */
+    public void complete(Collection<Long> tickets) {
+        lock.lock();
+        try {
+            completed.addAll(tickets);
+            long before = checkpoint;
+            while (completed.remove(checkpoint + 1)) {
+                checkpoint++;
+            }
+            if (checkpoint != before) {
+                writeCheckpoint(false);
+                deleteConsumedSegments();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 다음 ticket 이 이 값보다 크도록 맞춘다.
+     * 로그 디렉토리를 잃어버린 경우 이미 order_ticket 에 있는 번호를 다시 주지 않도록 기동 시 호출한다.
+     */
+    public void ensureTicketsAfter(long ticket) {
+        lock.lock();
+        try {
+            if (nextTicket > ticket) {
+                return;
+            }
+            log.warn("order log ticket moved forward. from={}, to={}", nextTicket, ticket + 1);
+            nextTicket = ticket + 1;
+            written = ticket;
+            synced = ticket;
+            readTicket = Math.max(readTicket, nextTicket);
+            checkpoint = Math.max(checkpoint, ticket);
+            completed.headSet(checkpoint, true).clear();
+            roll(nextTicket); // 건너뛴 번호가 기존 세그먼트 안에 빈 자리로 남지 않도록 새 세그먼트에서 시작
+            writeCheckpoint(true);
+            deleteConsumedSegments();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 접수됐지만 아직 처리가 끝나지 않은 주문 수
+     */
+    public long queuedCount() {
+        lock.lock();
+        try {
+            return written - checkpoint - completed.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long lastTicket() {
+        return written;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+            segments.clear();
+            writeCheckpoint(true);
+            checkpointChannel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long readableTicket() {
+        return fsync ? synced : written;
+    }
+
+    // 기다리는 동안 들어온 레코드까지 한 번에 force
+    private void sync(long ticket) {
+        if (synced >= ticket) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= ticket) {
+                return;
+            }
+            Segment current;
+            long upTo;
+            lock.lock();
+            try {
+                upTo = written;
+                current = segments.lastEntry().getValue(); // 이전 세그먼트는 넘어갈 때 force 했다.
+            } finally {
+                lock.unlock();
+            }
+            current.force();
+
+            lock.lock();
+            try {
+                synced = Math.max(synced, upTo);
+                readable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Segment segmentFor(long ticket, boolean create) {
+        Map.Entry<Long, Segment> entry = segments.floorEntry(ticket);
+        if (entry != null && ticket < entry.getKey() + entry.getValue().capacity) {
+            return entry.getValue();
+        }
+        if (!create) {
+            throw new IllegalStateException("order log segment not found. ticket=" + ticket);
+        }
+        return roll(ticket);
+    }
+
+    private Segment roll(long first) {
+        try {
+            if (!segments.isEmpty()) {
+                segments.lastEntry().getValue().force();
+            }
+            Segment segment = Segment.open(directory.resolve(String.format("%020d%s", first, SEGMENT_SUFFIX)), first, segmentCapacity);
+            segments.put(first, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 마지막 세그먼트는 계속 쓰므로 남긴다. 지우기 전에 checkpoint 를 force 한다.
+    private void deleteConsumedSegments() {
+        boolean forced = false;
+        Iterator<Map.Entry<Long, Segment>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Long, Segment> entry = it.next();
+            Long next = segments.higherKey(entry.getKey());
+            if (next == null || next - 1 > checkpoint) {
+                return;
+            }
+            if (!forced) {
+                writeCheckpoint(true);
+                forced = true;
+            }
+            Segment segment = entry.getValue();
+            segment.close();
+            it.remove();
+            try {
+                Files.deleteIfExists(segment.file);
+            } catch (IOException e) {
+                log.warn("order log segment delete failed. file={}", segment.file, e);
+            }
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (checkpointChannel.size() < Long.BYTES) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        checkpointChannel.read(buffer, 0);
+        buffer.flip();
+        return buffer.getLong();
+    }
+
+    private void writeCheckpoint(boolean force) {
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(checkpoint);
+            buffer.flip();
+            checkpointChannel.write(buffer, 0);
+            if (force) {
+                checkpointChannel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static class Segment {
+
+        private final Path file;
+        private final long first;
+        private final int capacity;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+
+        private Segment(Path file, long first, int capacity, FileChannel channel, MappedByteBuffer buffer) {
+            this.file = file;
+            this.first = first;
+            this.capacity = capacity;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        // 이미 있는 파일은 그 크기 그대로 (segment-bytes 설정이 바뀌었어도 읽을 수 있도록)
+        static Segment open(Path file, long first, int newCapacity) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size() >= RECORD_SIZE ? channel.size() : (long) newCapacity * RECORD_SIZE;
+            int capacity = (int) (size / RECORD_SIZE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            return new Segment(file, first, capacity, channel, buffer);
+        }
+
+        void write(long ticket, long memberId, long itemId, int count, long acceptedAt) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE)
+                    .putLong(ticket)
+                    .putLong(memberId)
+                    .putLong(itemId)
+                    .putInt(count)
+                    .putLong(acceptedAt);
+            record.putInt(crc(record.array()));
+            record.flip();
+
+            ByteBuffer target = buffer.duplicate();
+            target.position(position(ticket));
+            target.put(record);
+        }
+
+        // crc 가 맞지 않거나 ticket 이 다르면(기록 전/기록 중 중단) null
+        QueuedOrder read(long ticket) {
+            byte[] record = new byte[RECORD_SIZE];
+            ByteBuffer source = buffer.duplicate();
+            source.position(position(ticket));
+            source.get(record);
+
+            ByteBuffer values = ByteBuffer.wrap(record);
+            long recordTicket = values.getLong();
+            long memberId = values.getLong();
+            long itemId = values.getLong();
+            int count = values.getInt();
+            long acceptedAt = values.getLong();
+            int crc = values.getInt();
+            if (recordTicket != ticket || crc != crc(record)) {
+                return null;
+            }
+            return new QueuedOrder(ticket, memberId, itemId, count, acceptedAt);
+        }
+
+        // 앞에서부터 온전한 레코드 수
+        int recoverCount() {
+            for (int i = 0; i < capacity; i++) {
+                if (read(first + i) == null) {
+                    return i;
+                }
+            }
+            return capacity;
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        void close() {
+            try {
+                buffer.force();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private int position(long ticket) {
+            return (int) (ticket - first) * RECORD_SIZE;
+        }
+
+        private static int crc(byte[] record) {
+            CRC32 crc = new CRC32();
+            crc.update(record, 0, PAYLOAD_SIZE);
+            return (int) crc.getValue();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package jpabook.jpashop.service.async;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 접수 로그(OrderLog)의 주문 한 건
+ */
+@Getter
+@AllArgsConstructor
+public class QueuedOrder {
+
+    private final long ticket;
+    private final long memberId;
+    private final long itemId;
+    private final int count;
+    private final long acceptedAt; // epoch millis
+}
@@ -0,0 +1,72 @@
+package jpabook.jpashop.service.delivery;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.DeliveryStatus;
+
+/**
+ * 택배사 배송 상태 파일 형식 - 한 줄에 배송 하나
+ * CSV    : deliveryId,status (첫 줄 헤더 deliveryId,status 는 있어도 된다)
+ * NDJSON : {"deliveryId": 1, "status": "COMP"}
+ */
+public enum CarrierFileFormat {
+
+    CSV {
+        @Override
+        DeliveryStatusUpdate parse(String line, ObjectMapper objectMapper) {
+            String[] tokens = line.split(",", -1);
+            if (tokens.length < 2) {
+                throw new IllegalArgumentException("deliveryId,status 형식이 아닙니다.");
+            }
+            String deliveryId = tokens[0].trim();
+            if ("deliveryId".equalsIgnoreCase(deliveryId)) {
+                return null; // 헤더
+            }
+            return update(deliveryId, tokens[1].trim());
+        }
+    },
+
+    NDJSON {
+        @Override
+        DeliveryStatusUpdate parse(String line, ObjectMapper objectMapper) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("JSON 이 아닙니다.");
+            }
+            if (!node.hasNonNull("deliveryId") || !node.hasNonNull("status")) {
+                throw new IllegalArgumentException("deliveryId, status 가 필요합니다.");
+            }
+            return update(node.get("deliveryId").asText(), node.get("status").asText());
+        }
+    };
+
+    /**
+     * 한 줄 -> 상태 변경, 빈 줄/헤더는 null
+     * 형식이 잘못되면 IllegalArgumentException
+     */
+    public DeliveryStatusUpdate parseLine(String line, ObjectMapper objectMapper) {
+        if (line.isBlank()) {
+            return null;
+        }
+        return parse(line.trim(), objectMapper);
+    }
+
+    abstract DeliveryStatusUpdate parse(String line, ObjectMapper objectMapper);
+
+    private static DeliveryStatusUpdate update(String deliveryId, String status) {
+        long id;
+        try {
+            id = Long.parseLong(deliveryId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("잘못된 배송 id 입니다. deliveryId=" + deliveryId);
+        }
+        try {
+            return new DeliveryStatusUpdate(id, DeliveryStatus.valueOf(status.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 배송 상태입니다. status=" + status);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.service.delivery;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 택배사 파일 반영 결과
+ * lines = 읽은 상태 변경 줄 수, updated/skipped 는 묶음 안에서 배송 id 기준 (같은 배송이 한 묶음에 여러 번 있으면 한 건)
+ * skipped = 없는 배송, 이미 같은 상태/되돌리는 변경, 취소된 주문의 배송 (같은 파일을 다시 올려도 skipped 로 끝난다)
+ */
+@Getter
+public class DeliveryImportResult {
+
+    private static final int MAX_ERRORS = 100; // 응답에 담는 잘못된 줄 수
+
+    private long lines;
+    private long updated;
+    private long skipped;
+    private long errorCount;
+    private long elapsedMillis;
+    private final List<LineError> errors = new ArrayList<>();
+
+    void line() {
+        lines++;
+    }
+
+    void chunk(int requested, int updated) {
+        this.updated += updated;
+        this.skipped += requested - updated;
+    }
+
+    void error(long line, String message) {
+        errorCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    void done(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LineError {
+        private final long line;
+        private final String message;
+    }
+}
@@ -0,0 +1,83 @@
+package jpabook.jpashop.service.delivery;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.DeliveryStatus;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 택배사 배송 상태 파일 반영
+ * 파일을 한 줄씩 읽어서 chunkSize 건마다 DeliveryService.changeStatuses 로 넘긴다. (묶음마다 트랜잭션 하나)
+ * 파일 전체를 메모리에 올리지 않고, 한 묶음이 실패해도 그 묶음만 롤백되고 나머지는 계속 반영한다.
+ * 같은 배송이 한 묶음에 여러 번 있으면 마지막 줄을 쓴다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeliveryImportService {
+
+    private final DeliveryService deliveryService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${jpashop.delivery.import-chunk-size:1000}")
+    private int chunkSize;
+
+    public DeliveryImportResult importStatuses(InputStream in, CarrierFileFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        DeliveryImportResult result = new DeliveryImportResult();
+        Map<Long, DeliveryStatus> chunk = new HashMap<>();
+        long firstLine = 1;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            DeliveryStatusUpdate update;
+            try {
+                update = format.parseLine(line, objectMapper);
+            } catch (IllegalArgumentException e) {
+                result.error(lineNumber, e.getMessage());
+                continue;
+            }
+            if (update == null) {
+                continue;
+            }
+            result.line();
+            chunk.put(update.getDeliveryId(), update.getStatus());
+            if (chunk.size() >= chunkSize) {
+                apply(chunk, firstLine, lineNumber, result);
+                firstLine = lineNumber + 1;
+            }
+        }
+        apply(chunk, firstLine, lineNumber, result);
+
+        result.done(System.currentTimeMillis() - start);
+        log.info("carrier file imported. format={}, lines={}, updated={}, skipped={}, errors={}, elapsed={}ms",
+                format, result.getLines(), result.getUpdated(), result.getSkipped(), result.getErrorCount(), result.getElapsedMillis());
+        return result;
+    }
+
+    private void apply(Map<Long, DeliveryStatus> chunk, long fromLine, long toLine, DeliveryImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            result.chunk(chunk.size(), deliveryService.changeStatuses(chunk));
+        } catch (RuntimeException e) {
+            log.warn("carrier file chunk failed. lines {} ~ {}", fromLine, toLine, e);
+            result.error(fromLine, "줄 " + fromLine + " ~ " + toLine + " 반영 실패: " + e.getMessage());
+        }
+        chunk.clear();
+    }
+}
@@ -0,0 +1,65 @@
+package jpabook.jpashop.service.delivery;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.repository.DeliveryDto;
+import jpabook.jpashop.repository.DeliveryRepository;
+import jpabook.jpashop.repository.simplequery.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class DeliveryService {
+
+    private final DeliveryRepository deliveryRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    /**
+     * 배송 상태 변경 묶음 (배송 id -> 바꿀 상태) - 트랜잭션 하나
+     * 엔티티를 읽지 않고 바꿀 상태마다 대상 조회, 배송 UPDATE, 주문 목록 조회 모델 UPDATE 를 IN 조건 한번씩 실행한다.
+     * 바꿀 수 없는 배송(DeliveryStatus.canMove, 취소된 주문)은 건너뛰고 실제로 바뀐 수를 반환한다.
+     * 대상 조회와 UPDATE 사이에 주문이 취소되지 않도록 주문 row 를 먼저 잠그고, UPDATE 에서도 조건을 다시 확인한다.
+     */
+    @Transactional
+    public int changeStatuses(Map<Long, DeliveryStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return 0;
+        }
+        deliveryRepository.lockOrders(statuses.keySet());
+
+        Map<DeliveryStatus, List<Long>> idsByStatus = new EnumMap<>(DeliveryStatus.class);
+        statuses.forEach((id, status) -> idsByStatus.computeIfAbsent(status, s -> new ArrayList<>()).add(id));
+
+        int updated = 0;
+        for (Map.Entry<DeliveryStatus, List<Long>> entry : idsByStatus.entrySet()) {
+            List<Long[]> movable = deliveryRepository.findMovableTo(entry.getValue(), entry.getKey());
+            if (movable.isEmpty()) {
+                continue;
+            }
+            List<Long> deliveryIds = new ArrayList<>(movable.size());
+            List<Long> orderIds = new ArrayList<>(movable.size());
+            for (Long[] row : movable) {
+                deliveryIds.add(row[0]);
+                orderIds.add(row[1]);
+            }
+            updated += deliveryRepository.updateStatus(deliveryIds, entry.getKey());
+            orderSummaryRepository.updateDeliveryStatus(orderIds, entry.getKey());
+        }
+        return updated;
+    }
+
+    public List<DeliveryDto> findDeliveries(DeliveryStatus status, Long afterId, int limit) {
+        return deliveryRepository.findAllByStatus(status, afterId, limit);
+    }
+
+    public Map<DeliveryStatus, Long> countByStatus() {
+        return deliveryRepository.countByStatus();
+    }
+}
@@ -0,0 +1,16 @@
+package jpabook.jpashop.service.delivery;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 택배사 파일의 한 줄 - 배송 id 를 status 로
+ */
+@Getter
+@AllArgsConstructor
+public class DeliveryStatusUpdate {
+
+    private final Long deliveryId;
+    private final DeliveryStatus status;
+}
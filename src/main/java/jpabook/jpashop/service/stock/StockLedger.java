@@ -0,0 +1,269 @@
+package jpabook.jpashop.service.stock;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 메모리 재고 예약 원장 (StockStrategy.LEDGER)
+ * 인기 상품에 주문이 몰리면 DB row 락/버전 충돌 때문에 주문이 줄을 서게 된다.
+ * 상품별 예약 가능 수량을 메모리에서 CAS 로 차감하고, 커밋된 차감량만 모아 두었다가 주기적으로 한번에 DB 에 반영한다.
+ * 주의: 애플리케이션 인스턴스 하나를 기준으로 한다. 반영 전에 서버가 죽으면 아직 반영 안된 차감량은 유실된다.
+ * 원장 밖에서 재고를 바꾸면(상품 수정, 대량 취소 재고 원복) invalidateAfterCommit 으로 항목을 버린다. -> 다음 예약 때 DB 재고로 다시 만든다.
+ * 다시 만들 때는 쌓인 증감량을 먼저 반영한 뒤 DB 에서 새로 읽고, 버린 항목에 남은(아직 반영 안된, 트랜잭션이 안 끝난) 수량을 뺀다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private final ItemRepository itemRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final Map<Long, ItemStock> stocks = new ConcurrentHashMap<>();
+    private final Queue<ItemStock> retired = new ConcurrentLinkedQueue<>(); // 버린 항목 - 남은 증감량을 반영할 때까지 들고 있는다.
+
+    /**
+     * 재고 예약 - 예약 가능 수량을 바로 차감하고, 트랜잭션이 롤백되면 되돌린다.
+     * 커밋된 예약만 DB 반영 대상(pending)에 쌓인다.
+     */
+    public void reserve(Item item, int count) {
+        if (!tryReserve(item, count)) {
+            throw new NotEnoughStockException("need more stock");
+        }
+    }
+
+    /**
+     * 재고 예약 - 예약 가능 수량이 부족하면 예외 대신 false
+     */
+    public boolean tryReserve(Item item, int count) {
+        ItemStock stock = stockOf(item.getId());
+        if (!stock.tryReserve(count)) {
+            return false;
+        }
+        stock.begin(count);
+        afterCompletion(committed -> {
+            if (committed) {
+                complete(stock, count, 0, -count);
+            } else {
+                complete(stock, count, count, 0);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 재고 원복 (주문 취소) - 커밋된 경우에만 예약 가능 수량과 DB 반영 대상에 더한다.
+     */
+    public void release(Item item, int count) {
+        ItemStock stock = stockOf(item.getId());
+        stock.begin(0);
+        afterCompletion(committed -> {
+            if (committed) {
+                complete(stock, 0, count, count);
+            } else {
+                complete(stock, 0, 0, 0);
+            }
+        });
+    }
+
+    /**
+     * 예약/원복 트랜잭션이 끝났을 때 - 버린 항목이면 다시 만든 항목과 어긋나지 않도록 락을 잡고 반영한다.
+     * 다시 만든 항목은 버린 항목의 예약 중 수량(reserving)과 남은 증감량(pending)으로 계산되었으므로, 그 뒤에 풀린 수량만 넘겨준다.
+     * (버리기 직전에 끝난 예약은 예약 가능 수량이 적게 잡힐 수는 있어도 많게 잡히지는 않는다.)
+     */
+    private void complete(ItemStock stock, int reserved, int available, int pending) {
+        if (!stock.retired) {
+            stock.complete(reserved, available, pending);
+            return;
+        }
+        synchronized (this) {
+            stock.complete(reserved, available, pending);
+            ItemStock current = stocks.get(stock.itemId);
+            if (current != null && available > 0) {
+                current.available.addAndGet(available); // 다시 만든 뒤에 롤백된 예약, 커밋된 원복
+            }
+        }
+    }
+
+    /**
+     * 원장 밖에서 재고를 바꾼 상품 - 커밋되면 쌓인 증감량을 DB 에 반영하고 항목을 버린다.
+     * 예약 가능 수량은 다음 예약 때 바뀐 DB 재고로 다시 만든다. (커밋 시점에 원장에 없는 상품이면 아무것도 안한다)
+     * 지금 원장에 없어도 등록한다. - 이 트랜잭션이 커밋되기 전에 다른 예약이 예전 DB 재고로 항목을 만들 수 있다.
+     */
+    public void invalidateAfterCommit(Long itemId) {
+        afterCompletion(committed -> {
+            if (committed) {
+                invalidate(itemId);
+            }
+        });
+    }
+
+    private synchronized void invalidate(Long itemId) {
+        ItemStock stock = stocks.remove(itemId);
+        if (stock != null) {
+            stock.retired = true;
+            retired.add(stock);
+            flush();
+        }
+    }
+
+    /**
+     * 쌓인 재고 증감량을 상품별로 합쳐서 하나의 트랜잭션으로 DB 에 반영한다.
+     * 반영에 실패하면 증감량을 다시 쌓아두고 다음 주기에 재시도한다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.ledger-flush-interval:200}")
+    public synchronized void flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        stocks.values().forEach(stock -> collect(stock, deltas));
+        retired.removeIf(stock -> {
+            boolean settled = stock.inFlight.get() == 0; // 먼저 확인 - 확인한 뒤에 끝난 예약의 증감량은 다음 주기에 반영
+            collect(stock, deltas);
+            return settled;
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            // 커밋 후 콜백(invalidate)에서도 불리므로 항상 새 트랜잭션으로
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transaction.executeWithoutResult(status ->
+                    deltas.forEach((itemId, delta) -> itemRepository.addStockQuantity(itemId, Math.toIntExact(delta))));
+            log.debug("stock ledger flushed items={}", deltas.size());
+        } catch (RuntimeException e) {
+            log.warn("stock ledger flush failed, retry next time. items={}", deltas.size(), e);
+            deltas.forEach((itemId, delta) -> {
+                ItemStock holder = new ItemStock(itemId, 0); // 그 사이 버려진 항목일 수 있으므로 따로 들고 있는다.
+                holder.pending.add(delta);
+                retired.add(holder);
+            });
+        }
+    }
+
+    private static void collect(ItemStock stock, Map<Long, Long> deltas) {
+        long delta = stock.pending.sumThenReset();
+        if (delta != 0) {
+            deltas.merge(stock.itemId, delta, Long::sum);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    // 처음 예약할 때(버린 뒤 다시 예약할 때) DB 재고로 초기화. 이후에는 원장이 예약 가능 수량의 기준이 된다.
+    private ItemStock stockOf(Long itemId) {
+        ItemStock stock = stocks.get(itemId);
+        return stock != null ? stock : seed(itemId);
+    }
+
+    /**
+     * 쌓인 증감량을 반영한 뒤 DB 재고를 새로 읽는다. (호출한 쪽이 읽어둔 Item, 2차 캐시는 예전 재고일 수 있다)
+     * 버린 항목의 남은 증감량은 아직 DB 에 없으므로 더하고, 트랜잭션이 안 끝난 예약 수량은 뺀다.
+     */
+    private synchronized ItemStock seed(Long itemId) {
+        ItemStock stock = stocks.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+        flush();
+        long quantity = readStockQuantity(itemId);
+        for (ItemStock old : retired) {
+            if (old.itemId.equals(itemId)) {
+                quantity += old.pending.sum() - old.reserving.get();
+            }
+        }
+        stock = new ItemStock(itemId, Math.toIntExact(Math.max(quantity, 0)));
+        stocks.put(itemId, stock);
+        return stock;
+    }
+
+    // 새 트랜잭션 - readOnly 로 두면 replica 로 갈 수 있으므로 걸지 않는다.
+    private int readStockQuantity(Long itemId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Integer quantity = transaction.execute(status -> itemRepository.findStockQuantity(itemId));
+        if (quantity == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        return quantity;
+    }
+
+    private void afterCompletion(CompletionCallback callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.complete(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.complete(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private interface CompletionCallback {
+        void complete(boolean committed);
+    }
+
+    static class ItemStock {
+
+        private final Long itemId;
+        private final AtomicInteger available; // 예약 가능 수량
+        private final LongAdder pending = new LongAdder(); // 아직 DB 에 반영 안된 증감량
+        private final AtomicInteger inFlight = new AtomicInteger(); // 트랜잭션이 아직 끝나지 않은 예약/원복 수
+        private final AtomicInteger reserving = new AtomicInteger(); // 트랜잭션이 아직 끝나지 않은 예약 수량 (DB 에 아직 없는 차감)
+        private volatile boolean retired;
+
+        ItemStock(Long itemId, int stockQuantity) {
+            this.itemId = itemId;
+            this.available = new AtomicInteger(stockQuantity);
+        }
+
+        void begin(int reserved) {
+            inFlight.incrementAndGet();
+            reserving.addAndGet(reserved);
+        }
+
+        // pending 을 먼저 쌓고 reserving 을 뺀다. - 그 사이에 다시 만들면 두 번 빠져서 적게 잡힌다. (많게 잡히지 않는다)
+        void complete(int reserved, int available, int pending) {
+            this.pending.add(pending);
+            this.available.addAndGet(available);
+            reserving.addAndGet(-reserved);
+            inFlight.decrementAndGet();
+        }
+
+        boolean tryReserve(int count) {
+            while (true) {
+                int current = available.get();
+                if (current < count) {
+                    return false;
+                }
+                if (available.compareAndSet(current, current - count)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package jpabook.jpashop.service.stock;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 재고 차감/원복
+ * 같은 상품에 동시에 주문이 들어와도 재고가 음수가 되거나 차감이 유실되지 않도록 StockStrategy 에 따라 처리한다.
+ * 주문/취소 트랜잭션 안에서 호출된다.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class StockService {
+
+    private final ItemRepository itemRepository;
+    private final StockLedger stockLedger;
+
+    @Getter
+    @Value("${jpashop.stock.strategy:OPTIMISTIC}")
+    private StockStrategy strategy;
+
+    /**
+     * 재고 차감 + 주문상품 생성
+     */
+    public OrderItem createOrderItem(Long itemId, int count) {
+        Item item = strategy == StockStrategy.PESSIMISTIC
+                ? itemRepository.findOneForUpdate(itemId)
+                : itemRepository.findOne(itemId);
+        return createOrderItem(item, count);
+    }
+
+    /**
+     * 재고 차감 + 주문상품 생성 - item 은 findItems 로 조회한 상품이어야 한다.
+     */
+    public OrderItem createOrderItem(Item item, int count) {
+        if (strategy == StockStrategy.LEDGER) {
+            stockLedger.reserve(item, count);
+            return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        }
+        // OPTIMISTIC 충돌은 커밋 시점에 @Version 으로 감지 -> OrderFacade 에서 재시도
+        return OrderItem.createOrderItem(item, item.getPrice(), count);
+    }
+
+    /**
+     * 재고 차감 + 주문상품 생성 - 재고가 부족하면 예외 대신 null
+     * 여러 주문을 한 트랜잭션에 묶어서 저장할 때(비동기 주문) 사용한다.
+     * 이 클래스는 @Transactional 이라 NotEnoughStockException 이 밖으로 나가면 묶인 트랜잭션 전체가 rollback-only 가 된다.
+     */
+    public OrderItem tryCreateOrderItem(Item item, int count) {
+        if (strategy == StockStrategy.LEDGER) {
+            return stockLedger.tryReserve(item, count)
+                    ? OrderItem.createReservedOrderItem(item, item.getPrice(), count)
+                    : null;
+        }
+        if (item.getStockQuantity() < count) {
+            return null;
+        }
+        return OrderItem.createOrderItem(item, item.getPrice(), count);
+    }
+
+    /**
+     * 재고를 차감할 상품들을 IN 쿼리 한번으로 조회 (PESSIMISTIC 이면 락까지 같이 잡는다)
+     */
+    public Map<Long, Item> findItems(Collection<Long> itemIds) {
+        List<Item> items = strategy == StockStrategy.PESSIMISTIC
+                ? itemRepository.findAllByIdForUpdate(itemIds)
+                : itemRepository.findAllById(itemIds);
+        return items.stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+    }
+
+    /**
+     * 대량 취소 재고 원복 - 상품별로 합산한 수량(itemId -> 수량)을 상품마다 UPDATE 한번으로 반영
+     * 데드락을 피하기 위해 상품 id 순서로 업데이트한다. (업데이트가 행 락을 잡는다)
+     */
+    public void restock(Map<Long, Integer> quantities) {
+        if (strategy == StockStrategy.LEDGER) {
+            // 원장이 예약 가능 수량의 기준이므로 원장에 돌려주고, DB 반영은 원장 flush 에 맡긴다.
+            itemRepository.findAllById(quantities.keySet())
+                    .forEach(item -> stockLedger.release(item, quantities.get(item.getId())));
+            return;
+        }
+        quantities.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    itemRepository.restockQuantity(e.getKey(), e.getValue());
+                    stockLedger.invalidateAfterCommit(e.getKey()); // 전략을 바꾸기 전에 원장에 남은 항목
+                });
+    }
+
+    /**
+     * 주문 취소 + 재고 원복
+     */
+    public void cancel(Order order) {
+        switch (strategy) {
+            case PESSIMISTIC:
+                // 데드락을 피하기 위해 항상 상품 id 순서로 락을 잡는다.
+                order.getOrderItems().stream()
+                        .map(OrderItem::getItem)
+                        .distinct()
+                        .sorted(Comparator.comparing(Item::getId))
+                        .forEach(itemRepository::lockForUpdate);
+                order.cancel();
+                break;
+            case LEDGER:
+                order.cancel(orderItem -> stockLedger.release(orderItem.getItem(), orderItem.getCount()));
+                break;
+            default:
+                order.cancel();
+        }
+    }
+}
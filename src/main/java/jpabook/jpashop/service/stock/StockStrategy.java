@@ -0,0 +1,11 @@
+package jpabook.jpashop.service.stock;
+
+/**
+ * 재고 차감 동시성 제어 방식
+ * jpashop.stock.strategy 로 선택한다.
+ */
+public enum StockStrategy {
+    OPTIMISTIC,  // @Version 낙관적 락 + 충돌 시 정해진 횟수만큼 재시도 (OrderFacade)
+    PESSIMISTIC, // select ... for update 로 상품 row 락
+    LEDGER       // 메모리 재고 예약 원장(CAS)에서 차감하고 DB 에는 모아서 주기적으로 반영
+}
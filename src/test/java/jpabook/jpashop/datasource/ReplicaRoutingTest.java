@@ -0,0 +1,110 @@
+package jpabook.jpashop.datasource;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * H2 메모리 DB 두 개를 primary / replica 로 사용
+ * H2 는 복제가 없으므로 replica 의 heartbeat 를 테스트에서 직접 맞춘다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "jpashop.datasource.replica.enabled=true",
+        "jpashop.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "jpashop.datasource.replica.max-lag=60000",
+        "jpashop.datasource.replica.check-interval=3600000"
+})
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired ReplicaLagMonitor replicaLagMonitor;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void routeByReadOnlyAndLag() throws Exception {
+        //given // replica 에 heartbeat 가 없음 = 복제 지연
+        replicaExecute("drop table if exists replication_heartbeat");
+        replicaLagMonitor.check();
+
+        //then // 읽기도 primary 로
+        assertFalse(replicaLagMonitor.isReplicaAvailable());
+        assertTrue(connectedUrl(true).contains("routing-primary"));
+
+        //given // replica 가 primary 를 따라잡음
+        catchUp();
+
+        //then // readOnly 는 replica, 쓰기는 primary
+        assertTrue(replicaLagMonitor.isReplicaAvailable());
+        assertTrue(connectedUrl(true).contains("routing-replica"));
+        assertTrue(connectedUrl(false).contains("routing-primary"));
+    }
+
+    @Test
+    public void readThenWriteInOneEntityManager() throws Exception {
+        //given // OSIV 처럼 요청 하나에 EntityManager 하나를 열어 둔다.
+        catchUp();
+        EntityManager em = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(em));
+        try {
+            //when // readOnly 조회 다음에 쓰기
+            String read = jpaConnectedUrl(em, true);
+            String write = jpaConnectedUrl(em, false);
+
+            //then // 쓰기는 replica 커넥션을 물려받지 않고 primary 로
+            assertTrue(read.contains("routing-replica"));
+            assertTrue(write.contains("routing-primary"));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(em);
+        }
+    }
+
+    private void catchUp() throws Exception {
+        replicaExecute("create table if not exists replication_heartbeat (id int primary key, beat_millis bigint not null)",
+                "merge into replication_heartbeat key(id) values (1, " + System.currentTimeMillis() + ")");
+        replicaLagMonitor.check();
+    }
+
+    private void replicaExecute(String... sqls) throws Exception {
+        try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            for (String sql : sqls) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private String jpaConnectedUrl(EntityManager em, boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                em.unwrap(Session.class).doReturningWork(connection -> connection.getMetaData().getURL()));
+    }
+
+    private String connectedUrl(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status ->
+                jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getURL()));
+    }
+}
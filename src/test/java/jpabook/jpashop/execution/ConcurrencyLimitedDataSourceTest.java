@@ -0,0 +1,78 @@
+package jpabook.jpashop.execution;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimitedDataSourceTest {
+
+    private static final String URL = "jdbc:h2:mem:concurrency-limit;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void acquireAndReleaseOnClose() throws Exception {
+        //given
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(new DriverManagerDataSource(URL, "sa", ""), 2, 100);
+
+        //when // 커넥션을 얻으면 permit 을 하나씩 쓴다.
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        //then
+        assertEquals(0, dataSource.getAvailablePermits());
+        assertTrue(first.isValid(1));
+
+        //when // close 하면 돌려주고, 두 번 close 해도 한번만 돌려준다.
+        first.close();
+        first.close();
+
+        //then
+        assertEquals(1, dataSource.getAvailablePermits());
+        second.close();
+        assertEquals(2, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void failAfterAcquireTimeout() throws Exception {
+        //given // 한도 1 을 이미 사용 중
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(new DriverManagerDataSource(URL, "sa", ""), 1, 50);
+        Connection connection = dataSource.getConnection();
+
+        //when
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        //then // 기다린 뒤 실패하고, 사용 중인 permit 은 그대로
+        assertTrue(System.nanoTime() - start >= 50_000_000L);
+        assertEquals(0, dataSource.getAvailablePermits());
+        connection.close();
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    public void releaseWhenTargetFails() throws Exception {
+        //given // 풀에서 커넥션을 얻지 못하는 경우
+        ConcurrencyLimitedDataSource dataSource = new ConcurrencyLimitedDataSource(new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                throw new SQLException("pool timeout");
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                throw new SQLException("pool timeout");
+            }
+        }, 1, 50);
+
+        //when
+        assertThrows(SQLException.class, dataSource::getConnection);
+
+        //then // permit 을 잃어버리지 않는다.
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+}
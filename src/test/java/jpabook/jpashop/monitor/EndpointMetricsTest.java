@@ -0,0 +1,94 @@
+package jpabook.jpashop.monitor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointMetricsTest {
+
+    EndpointMetrics endpointMetrics = new EndpointMetrics(new QueryBudgetMetrics());
+
+    @AfterEach
+    public void clear() {
+        QueryContext.clear();
+    }
+
+    @Test
+    public void cumulativeBuckets() throws Exception {
+        //given // 0.05s 는 le="0.05" 버킷에 포함(경계값), 1.5s 는 le="2.5", 20s 는 +Inf 에만
+        QueryContext context = QueryContext.start();
+        record("GET /a", context, 50);
+        record("GET /a", context, 1500);
+        record("GET /a", context, 20000);
+
+        //when
+        String scrape = endpointMetrics.scrape();
+
+        //then
+        assertLine(scrape, "jpashop_http_request_seconds_bucket{endpoint=\"GET /a\",le=\"0.025\"} 0");
+        assertLine(scrape, "jpashop_http_request_seconds_bucket{endpoint=\"GET /a\",le=\"0.05\"} 1");
+        assertLine(scrape, "jpashop_http_request_seconds_bucket{endpoint=\"GET /a\",le=\"1.0\"} 1");
+        assertLine(scrape, "jpashop_http_request_seconds_bucket{endpoint=\"GET /a\",le=\"2.5\"} 2");
+        assertLine(scrape, "jpashop_http_request_seconds_bucket{endpoint=\"GET /a\",le=\"10.0\"} 2");
+        assertLine(scrape, "jpashop_http_request_seconds_bucket{endpoint=\"GET /a\",le=\"+Inf\"} 3");
+        assertLine(scrape, "jpashop_http_request_seconds_sum{endpoint=\"GET /a\"} 21.55");
+        assertLine(scrape, "jpashop_http_request_seconds_count{endpoint=\"GET /a\"} 3");
+    }
+
+    @Test
+    public void queryContextValues() throws Exception {
+        //given // SQL 2번(합계 30ms), row 3개, 엔티티 로딩 2번, flush 1번
+        QueryContext context = QueryContext.start();
+        context.record("select * from member where member_id = 1", TimeUnit.MILLISECONDS.toNanos(10));
+        context.record("select * from member where member_id = 2", TimeUnit.MILLISECONDS.toNanos(20));
+        context.row();
+        context.row();
+        context.row();
+        context.entityLoad();
+        context.entityLoad();
+        context.flush();
+
+        //when
+        record("GET /b", context, 100);
+        String scrape = endpointMetrics.scrape();
+
+        //then
+        assertLine(scrape, "jpashop_db_seconds_sum{endpoint=\"GET /b\"} 0.03");
+        assertLine(scrape, "jpashop_db_seconds_bucket{endpoint=\"GET /b\",le=\"0.025\"} 0");
+        assertLine(scrape, "jpashop_db_seconds_bucket{endpoint=\"GET /b\",le=\"0.05\"} 1");
+        assertLine(scrape, "jpashop_db_statements_bucket{endpoint=\"GET /b\",le=\"1.0\"} 0");
+        assertLine(scrape, "jpashop_db_statements_bucket{endpoint=\"GET /b\",le=\"2.0\"} 1");
+        assertLine(scrape, "jpashop_db_rows_sum{endpoint=\"GET /b\"} 3.0");
+        assertLine(scrape, "jpashop_hibernate_entity_loads_sum{endpoint=\"GET /b\"} 2.0");
+        assertLine(scrape, "jpashop_hibernate_collection_loads_bucket{endpoint=\"GET /b\",le=\"1.0\"} 1");
+        assertLine(scrape, "jpashop_hibernate_flushes_bucket{endpoint=\"GET /b\",le=\"0.0\"} 0");
+        assertLine(scrape, "jpashop_hibernate_flushes_bucket{endpoint=\"GET /b\",le=\"1.0\"} 1");
+    }
+
+    @Test
+    public void escapeLabelAndInFlight() throws Exception {
+        //given
+        record("GET /\"quoted\"", QueryContext.start(), 1);
+        endpointMetrics.requestStarted();
+        endpointMetrics.requestStarted();
+        endpointMetrics.requestFinished();
+
+        //when
+        String scrape = endpointMetrics.scrape();
+
+        //then
+        assertLine(scrape, "jpashop_http_request_seconds_count{endpoint=\"GET /\\\"quoted\\\"\"} 1");
+        assertLine(scrape, "jpashop_http_requests_in_flight 1");
+    }
+
+    private void record(String endpoint, QueryContext context, long elapsedMillis) {
+        endpointMetrics.record(endpoint, context, TimeUnit.MILLISECONDS.toNanos(elapsedMillis));
+    }
+
+    private static void assertLine(String scrape, String line) {
+        assertTrue(scrape.lines().anyMatch(line::equals), () -> "missing line: " + line + "\n" + scrape);
+    }
+}
@@ -0,0 +1,108 @@
+package jpabook.jpashop.monitor;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.QueryBudgetExceededException;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 테스트 설정(jpashop.query-budget.fail-on-violation=true)에서는 예산 초과, N+1 의심 시 요청이 예외로 실패한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class QueryBudgetTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+
+    List<Long> orderIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+
+        // 회원이 모두 달라야 회원, 배송 지연 로딩이 주문 수만큼 나간다.
+        for (int i = 0; i < 3; i++) {
+            Member member = new Member();
+            member.setName("budget-" + i);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            Long memberId = memberService.join(member);
+            orderIds.add(orderService.order(memberId, book.getId(), 1));
+        }
+
+        // 영속성 컨텍스트를 비워야 요청에서 실제 SQL 이 실행된다.
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void withinBudget() throws Exception {
+        mockMvc.perform(get("/api/v2/orders"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void orderListPageInOneQuery() throws Exception {
+        // 주문 목록 화면은 @QueryBudget(1) - 대표상품까지 DTO 한번으로 조회
+        mockMvc.perform(get("/orders"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void nPlusOneDetected() throws Exception {
+        // v2 simple-orders 는 주문마다 회원, 배송을 지연 로딩 -> N+1
+        QueryBudgetExceededException e = assertThrows(QueryBudgetExceededException.class,
+                () -> mockMvc.perform(get("/api/v2/simple-orders")));
+
+        assertTrue(e.getMessage().contains("N+1 suspected"));
+    }
+
+    @Test
+    public void simpleOrdersFromSummary() throws Exception {
+        // v4, v5 는 주문 목록 조회 모델(order_summary) 한 테이블만 읽는다. 취소는 같은 트랜잭션에서 반영된다.
+        Long cancelled = orderIds.get(0);
+        orderService.cancelOrder(cancelled);
+        em.flush();
+        em.clear();
+
+        String filter = "[?(@.orderId == " + cancelled + ")]";
+        mockMvc.perform(get("/api/v4/simple-orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$" + filter + ".orderStatus").value(contains("CANCEL")))
+                .andExpect(jsonPath("$" + filter + ".name").value(contains("budget-0")))
+                .andExpect(jsonPath("$" + filter + ".lineCount").value(contains(1)))
+                .andExpect(jsonPath("$" + filter + ".totalPrice").value(contains(10000)));
+
+        mockMvc.perform(get("/api/v5/simple-orders").param("orderStatus", "CANCEL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data" + filter + ".orderId").value(contains(cancelled.intValue())));
+    }
+}
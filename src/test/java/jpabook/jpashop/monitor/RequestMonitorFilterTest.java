@@ -0,0 +1,119 @@
+package jpabook.jpashop.monitor;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestMonitorFilterTest {
+
+    EndpointMetrics endpointMetrics = new EndpointMetrics(new QueryBudgetMetrics());
+    RequestMonitorFilter filter = new RequestMonitorFilter(new QueryBudgetMetrics(), endpointMetrics);
+
+    @Test
+    public void recordLatencyAndInFlight() throws Exception {
+        //given // 컨트롤러까지 간 요청 - 처리 중에는 in-flight 1
+        FilterChain chain = (request, response) -> {
+            request.setAttribute(QueryBudgetInterceptor.ENDPOINT_ATTRIBUTE, "GET /ok");
+            assertEquals(1, endpointMetrics.getInFlight());
+            assertNotNull(QueryContext.current());
+            sleep(20);
+        };
+
+        //when
+        filter.doFilter(new MockHttpServletRequest("GET", "/ok"), new MockHttpServletResponse(), chain);
+
+        //then
+        assertEquals(0, endpointMetrics.getInFlight());
+        assertNull(QueryContext.current());
+        assertEquals(1, count("GET /ok"));
+        assertTrue(latencySum("GET /ok") >= 0.02);
+    }
+
+    @Test
+    public void recordWhenRequestThrows() throws Exception {
+        //given
+        FilterChain chain = (request, response) -> {
+            request.setAttribute(QueryBudgetInterceptor.ENDPOINT_ATTRIBUTE, "GET /fail");
+            sleep(20);
+            throw new IllegalStateException("fail");
+        };
+
+        //when
+        assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(new MockHttpServletRequest("GET", "/fail"), new MockHttpServletResponse(), chain));
+
+        //then // 예외로 끝난 요청도 in-flight 에서 빠지고 시간이 기록된다.
+        assertEquals(0, endpointMetrics.getInFlight());
+        assertNull(QueryContext.current());
+        assertEquals(1, count("GET /fail"));
+        assertTrue(latencySum("GET /fail") >= 0.02);
+    }
+
+    @Test
+    public void recordAsyncRequestOnAsyncDispatch() throws Exception {
+        //given // 스트리밍 응답 - 핸들러는 비동기 처리만 시작하고 반환된다.
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/stream");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(QueryBudgetInterceptor.ENDPOINT_ATTRIBUTE, "GET /stream");
+            request.setAsyncStarted(true);
+        });
+        assertEquals(1, endpointMetrics.getInFlight());
+        assertEquals(0, count("GET /stream"));
+
+        //when // 비동기 스레드가 같은 QueryContext 에 기록한 뒤 async 디스패치
+        QueryContext context = (QueryContext) request.getAttribute(RequestMonitorFilter.CONTEXT_ATTRIBUTE);
+        context.record("select * from orders", 0);
+        sleep(20);
+        request.setAsyncStarted(false);
+        request.setDispatcherType(DispatcherType.ASYNC);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> assertSame(context, QueryContext.current()));
+
+        //then // 스트리밍이 끝난 시점까지의 시간과 SQL 이 한 번만 기록된다.
+        assertEquals(0, endpointMetrics.getInFlight());
+        assertNull(QueryContext.current());
+        assertEquals(1, count("GET /stream"));
+        assertTrue(latencySum("GET /stream") >= 0.02);
+        assertTrue(endpointMetrics.scrape().contains("jpashop_db_statements_sum{endpoint=\"GET /stream\"} 1.0"));
+    }
+
+    @Test
+    public void skipUnmappedRequest() throws Exception {
+        //when // 정적 리소스 - 인터셉터가 엔드포인트를 남기지 않는다.
+        filter.doFilter(new MockHttpServletRequest("GET", "/css/app.css"), new MockHttpServletResponse(), (request, response) -> { });
+
+        //then
+        assertEquals(0, endpointMetrics.getInFlight());
+        assertFalse(endpointMetrics.scrape().contains("/css/app.css"));
+    }
+
+    private long count(String endpoint) {
+        return (long) value("jpashop_http_request_seconds_count", endpoint);
+    }
+
+    private double latencySum(String endpoint) {
+        return value("jpashop_http_request_seconds_sum", endpoint);
+    }
+
+    private double value(String name, String endpoint) {
+        String prefix = name + "{endpoint=\"" + endpoint + "\"} ";
+        return endpointMetrics.scrape().lines()
+                .filter(line -> line.startsWith(prefix))
+                .mapToDouble(line -> Double.parseDouble(line.substring(prefix.length())))
+                .findFirst()
+                .orElse(0);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package jpabook.jpashop.monitor;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 테스트 설정에는 hibernate.generate_statistics 가 없으므로 테스트 동안만 통계를 켠다.
+ */
+@SpringBootTest
+@Transactional
+class RequestStatisticsTest {
+
+    @Autowired EntityManager em;
+    @Autowired EntityManagerFactory emf;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+
+    Statistics statistics;
+    boolean enabled;
+
+    @BeforeEach
+    public void enableStatistics() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        enabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    public void restoreStatistics() {
+        statistics.setStatisticsEnabled(enabled);
+        QueryContext.clear();
+    }
+
+    @Test
+    public void countIntoCurrentRequest() throws Exception {
+        //given
+        assertTrue(statistics instanceof RequestStatistics);
+        Long orderId = createOrder();
+        em.flush();
+        em.clear();
+
+        //when // 주문 로딩
+        QueryContext context = QueryContext.start();
+        Order order = em.find(Order.class, orderId);
+
+        //then
+        assertEquals(1, context.getEntityLoadCount());
+        assertEquals(0, context.getCollectionLoadCount());
+
+        //when // 주문상품 컬렉션 로딩 (주문상품 엔티티 1개) + flush
+        order.getOrderItems().size();
+        em.flush();
+
+        //then
+        assertEquals(2, context.getEntityLoadCount());
+        assertEquals(1, context.getCollectionLoadCount());
+        assertEquals(1, context.getFlushCount());
+    }
+
+    @Test
+    public void ignoreOutsideRequest() throws Exception {
+        //given // 요청 밖(스케줄러, 배치)에서는 전역 통계만 올라간다.
+        Long orderId = createOrder();
+        em.flush();
+        em.clear();
+        long loads = statistics.getEntityLoadCount();
+
+        //when
+        em.find(Order.class, orderId);
+
+        //then
+        assertNull(QueryContext.current());
+        assertEquals(loads + 1, statistics.getEntityLoadCount());
+    }
+
+    private Long createOrder() {
+        Member member = new Member();
+        member.setName("statistics-member");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return orderService.order(memberId, book.getId(), 1);
+    }
+}
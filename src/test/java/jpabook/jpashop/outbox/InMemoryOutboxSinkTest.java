@@ -0,0 +1,83 @@
+package jpabook.jpashop.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryOutboxSinkTest {
+
+    @Test
+    public void readAfterPublishSeq() throws Exception {
+        //given // offset 은 publishSeq
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(4);
+        sink.publish(messages(11, 13));
+
+        //when
+        InMemoryOutboxSink.Changes first = sink.read(10, 2);
+        InMemoryOutboxSink.Changes second = sink.read(first.getNext(), 10);
+        InMemoryOutboxSink.Changes empty = sink.read(second.getNext(), 10);
+
+        //then
+        assertEquals(List.of(11L, 12L), ids(first));
+        assertEquals(List.of(13L), ids(second));
+        assertEquals(13, second.getNext());
+        assertTrue(empty.getMessages().isEmpty());
+        assertEquals(13, empty.getNext());
+        assertFalse(second.isTruncated());
+    }
+
+    @Test
+    public void overwrittenEventsAreReadFromStore() throws Exception {
+        //given // 용량 4 에 6 건 -> 1, 2 는 밀려남
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(4);
+        sink.publish(messages(1, 6));
+
+        //then // 밀려난 구간부터는 버퍼로 답하지 않고(null) outbox_event 에서 읽는다.
+        assertNull(sink.read(0, 10));
+        assertNull(sink.read(1, 10));
+        assertEquals(List.of(3L, 4L, 5L, 6L), ids(sink.read(2, 10)));
+    }
+
+    @Test
+    public void restartedSinkDoesNotAnswerOlderIds() throws Exception {
+        //given // 재기동 전 id 100 까지 읽었던 소비자, 재기동 후에는 201 부터 내보냄
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(4);
+        assertNull(sink.read(100, 10));
+        sink.publish(messages(201, 202));
+
+        //then
+        assertNull(sink.read(100, 10));
+        assertEquals(List.of(201L, 202L), ids(sink.read(200, 10)));
+    }
+
+    @Test
+    public void lateCommittedEventGetsLaterOffset() throws Exception {
+        //given // id 5 가 먼저 커밋되어 내보내지고, 더 작은 id 3 이 나중에 커밋됨
+        InMemoryOutboxSink sink = new InMemoryOutboxSink(4);
+        sink.publish(List.of(message(5, 1)));
+        InMemoryOutboxSink.Changes first = sink.read(0, 10);
+        sink.publish(List.of(message(3, 2)));
+
+        //then // 이미 id 5 까지 받은 소비자도 id 3 을 받는다.
+        assertEquals(List.of(5L), ids(first));
+        assertEquals(List.of(3L), ids(sink.read(first.getNext(), 10)));
+    }
+
+    private static List<OutboxMessage> messages(long from, long to) {
+        return LongStream.rangeClosed(from, to)
+                .mapToObj(id -> message(id, id))
+                .collect(Collectors.toList());
+    }
+
+    private static OutboxMessage message(long id, long publishSeq) {
+        return new OutboxMessage(id, publishSeq, OutboxEvents.ORDER, id, "ORDER_PLACED", null, "{}");
+    }
+
+    private static List<Long> ids(InMemoryOutboxSink.Changes changes) {
+        return changes.getMessages().stream().map(OutboxMessage::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogNamesTest {
+
+    @Test
+    public void prefixSearchWithOverlay() throws Exception {
+        //given
+        CatalogNames names = CatalogNames.of(List.of(
+                new Object[]{1L, "spring"}, new Object[]{2L, "JPA"}, new Object[]{3L, "Spring Boot"}, new Object[]{4L, "jpa book"}));
+
+        //then // 대소문자 무시, 이름 순
+        assertEquals(List.of(2L, 4L), ids(names.search("jp", 10)));
+        assertEquals(List.of(1L), ids(names.search("SPRING", 1)));
+
+        //when // 이름 변경 + 추가는 overlay 로 반영
+        CatalogNames changed = names.with(2L, "Hibernate").with(5L, "JPA2");
+
+        //then
+        assertEquals(List.of(4L, 5L), ids(changed.search("jp", 10)));
+        assertEquals(List.of(2L), ids(changed.search("h", 10)));
+        assertEquals(List.of(2L, 4L), ids(names.search("jp", 10))); // 이전 목록은 그대로
+    }
+
+    @Test
+    public void compactKeepsResults() throws Exception {
+        //given
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            rows.add(new Object[]{id, String.format("member%03d", id)});
+        }
+        CatalogNames names = CatalogNames.of(rows);
+
+        //when // overlay 가 쌓여서 배열로 합쳐질 때까지 변경
+        for (long id = 1; id <= 1000; id++) {
+            names = names.with(id, String.format("member%04d", id));
+        }
+
+        //then
+        assertEquals(1000, names.search("", 2000).size()); // 예전 이름(member001)은 남지 않는다.
+        assertEquals(List.of(1L, 2L, 3L), ids(names.search("member", 3)));
+        assertEquals(List.of(1000L), ids(names.search("member1000", 10)));
+    }
+
+    private static List<Long> ids(List<CatalogNames.Entry> entries) {
+        return entries.stream().map(CatalogNames.Entry::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,59 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 두 카테고리를 서로의 밑으로 동시에 옮겨도 순환이 생기지 않는지 확인
+ * 실제 커밋이 일어나야 하므로 @Transactional 을 걸지 않는다.
+ */
+@SpringBootTest
+class CategoryServiceConcurrencyTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryRepository categoryRepository;
+
+    @Test
+    public void crossMoveDoesNotMakeCycle() throws Exception {
+        //given // 둘 다 루트
+        Long first = categoryService.create("동시 이동 1", null);
+        Long second = categoryService.create("동시 이동 2", null);
+
+        //when // first -> second 밑, second -> first 밑을 동시에
+        AtomicInteger moved = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        executor.submit(() -> move(first, second, moved, start, done));
+        executor.submit(() -> move(second, first, moved, start, done));
+        start.countDown();
+        done.await(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        //then // 나중에 락을 잡은 쪽은 하위 카테고리 밑으로 옮기는 것이므로 거절된다.
+        assertEquals(1, moved.get());
+        assertNotEquals(categoryRepository.isDescendant(first, second), categoryRepository.isDescendant(second, first));
+    }
+
+    private void move(Long categoryId, Long parentId, AtomicInteger moved, CountDownLatch start, CountDownLatch done) {
+        try {
+            start.await();
+            categoryService.move(categoryId, parentId);
+            moved.incrementAndGet();
+        } catch (IllegalArgumentException | InterruptedException e) {
+            // 순환이 되는 이동은 거절
+        } finally {
+            done.countDown();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class CategoryServiceTest {
+
+    @Autowired CategoryService categoryService;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void subtreeItemsFollowMove() throws Exception {
+        //given // 도서 > 국내도서 > 소설
+        Long books = categoryService.create("도서", null);
+        Long domestic = categoryService.create("국내도서", books);
+        Long novel = categoryService.create("소설", domestic);
+        Long jpa = addItem(domestic, "JPA");
+        Long spring = addItem(novel, "SPRING");
+
+        //then // 하위 카테고리 상품까지 조회
+        assertEquals(List.of(jpa, spring), subtreeItemIds(books));
+        assertEquals(List.of(spring), subtreeItemIds(novel));
+
+        //when // 소설을 루트로 이동
+        categoryService.move(novel, null);
+
+        //then
+        assertEquals(List.of(jpa), subtreeItemIds(books));
+        assertEquals(List.of(spring), subtreeItemIds(novel));
+    }
+
+    @Test
+    public void cannotMoveUnderDescendant() throws Exception {
+        //given
+        Long books = categoryService.create("도서", null);
+        Long domestic = categoryService.create("국내도서", books);
+
+        //then
+        assertThrows(IllegalArgumentException.class, () -> categoryService.move(books, domestic));
+    }
+
+    private Long addItem(Long categoryId, String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        Category category = categoryRepository.findOne(categoryId);
+        category.getItems().add(book);
+        return book.getId();
+    }
+
+    private List<Long> subtreeItemIds(Long categoryId) {
+        return categoryService.findSubtreeItems(categoryId, 0, 100).stream()
+                .map(Item::getId)
+                .collect(Collectors.toList());
+    }
+}
@@ -6,8 +6,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -47,4 +57,54 @@ class MemberServiceTest {
         IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> memberService.join(member2));
         assertEquals("이미 존재하는 회원입니다.", thrown.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void updateWithoutName() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("Kim2");
+        Long savedId = memberService.join(member);
+
+        //then // 이름 없이 수정하면 NPE 대신 IllegalArgumentException, 이름은 그대로
+        assertThrows(IllegalArgumentException.class, () -> memberService.update(savedId, null));
+        assertEquals("Kim2", memberRepository.findOne(savedId).getName());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // 실제 커밋 경쟁이 필요하므로 테스트 트랜잭션 없이 실행
+    public void concurrentDuplicateJoin() throws Exception {
+        //given
+        String name = "race-" + System.nanoTime();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger duplicate = new AtomicInteger();
+
+        //when // 같은 이름으로 동시에 가입
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                Member member = new Member();
+                member.setName(name);
+                start.await();
+                try {
+                    memberService.join(member);
+                    success.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    duplicate.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then // 한명만 가입되고 나머지는 중복 예외
+        assertEquals(1, success.get());
+        assertEquals(threads - 1, duplicate.get());
+    }
+}
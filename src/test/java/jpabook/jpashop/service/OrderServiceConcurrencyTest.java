@@ -0,0 +1,136 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.BulkCancelResult.OrderResult;
+import jpabook.jpashop.service.stock.StockLedger;
+import jpabook.jpashop.service.stock.StockService;
+import jpabook.jpashop.service.stock.StockStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 같은 상품에 주문이 몰려도 재고보다 많이 팔리지 않는지(oversell), 같은 주문을 동시에 취소해도 재고가 한번만 돌아오는지 확인
+ * 실제 커밋이 일어나야 하므로 @Transactional 을 걸지 않는다.
+ */
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    private static final int STOCK = 100;
+    private static final int ORDERS = 2000;
+    private static final int THREADS = 32;
+
+    @Autowired OrderFacade orderFacade;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired StockService stockService;
+    @Autowired StockLedger stockLedger;
+
+    @AfterEach
+    public void restoreStrategy() {
+        ReflectionTestUtils.setField(stockService, "strategy", StockStrategy.OPTIMISTIC);
+    }
+
+    @ParameterizedTest
+    @EnumSource(StockStrategy.class)
+    public void noOversell(StockStrategy strategy) throws Exception {
+        //given
+        ReflectionTestUtils.setField(stockService, "strategy", strategy);
+        Long memberId = memberService.join(createMember("concurrency-" + strategy));
+        Long itemId = createBook("hot item " + strategy, STOCK);
+
+        //when
+        AtomicInteger success = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            executor.submit(() -> {
+                try {
+                    orderFacade.order(memberId, itemId, 1);
+                    success.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // 재고 부족 / 재시도 초과
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(2, TimeUnit.MINUTES);
+        executor.shutdown();
+        stockLedger.flush();
+
+        //then
+        int restStock = itemService.findOne(itemId).getStockQuantity();
+        assertTrue(restStock >= 0, "재고는 음수가 될 수 없다.");
+        assertEquals(STOCK - restStock, success.get(), "성공한 주문 수만큼만 재고가 줄어야 한다.");
+        if (strategy != StockStrategy.OPTIMISTIC) { // 낙관적 락은 재시도 횟수를 넘기면 재고가 남을 수 있다.
+            assertEquals(STOCK, success.get());
+        }
+    }
+
+    @Test
+    public void bulkCancelRestocksOnce() throws Exception {
+        //given
+        Long memberId = memberService.join(createMember("bulk-cancel-concurrency"));
+        Long itemId = createBook("bulk cancel item", STOCK);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orderIds.add(orderService.order(memberId, itemId, 1));
+        }
+
+        //when // 같은 주문들을 여러 스레드에서 동시에 대량 취소
+        AtomicInteger cancelled = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                try {
+                    cancelled.addAndGet((int) orderService.cancelOrders(orderIds).stream().filter(OrderResult::isSuccess).count());
+                } catch (IllegalStateException e) {
+                    // 그 사이 다른 요청에서 취소됨 -> 전체 롤백
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        //then // 주문마다 한번만 취소되고 재고도 한번만 돌아온다.
+        assertEquals(orderIds.size(), cancelled.get());
+        assertEquals(STOCK, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return member;
+    }
+
+    private Long createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
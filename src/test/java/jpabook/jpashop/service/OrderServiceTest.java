@@ -0,0 +1,121 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.BulkCancelResult.OrderResult;
+import jpabook.jpashop.service.delivery.DeliveryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class OrderServiceTest {
+
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired DeliveryService deliveryService;
+    @Autowired EntityManager em;
+
+    @Test
+    public void cancelOrders() throws Exception {
+        //given // 상품 10개 중 2 + 3 + 1 + 1 주문, 하나는 이미 취소, 하나는 배송 완료
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        Long first = orderService.order(memberId, itemId, 2);
+        Long second = orderService.order(memberId, itemId, 3);
+        Long cancelled = orderService.order(memberId, itemId, 1);
+        Long delivered = orderService.order(memberId, itemId, 1);
+        orderService.cancelOrder(cancelled);
+        deliveryService.changeStatuses(Map.of(deliveryId(delivered), DeliveryStatus.COMP));
+        em.flush();
+        em.clear();
+
+        //when
+        List<OrderResult> results = orderService.cancelOrders(List.of(first, second, cancelled, delivered, 999999999L));
+
+        //then // 취소할 수 있는 주문만 취소하고 그 수량만 재고로 돌아온다.
+        assertEquals(List.of(true, true, false, false, false), results.stream().map(OrderResult::isSuccess).collect(Collectors.toList()));
+        em.flush();
+        em.clear();
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(first).getStatus());
+        assertEquals(OrderStatus.CANCEL, orderRepository.findOne(second).getStatus());
+        assertEquals(OrderStatus.ORDER, orderRepository.findOne(delivered).getStatus());
+        assertEquals(9, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void cancelAllSkipsCancelledAndDelivered() throws Exception {
+        //given // 조회 이후에 다른 요청에서 취소되거나 배송 완료된 주문
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        Long open = orderService.order(memberId, itemId, 1);
+        Long cancelled = orderService.order(memberId, itemId, 1);
+        Long delivered = orderService.order(memberId, itemId, 1);
+        orderService.cancelOrder(cancelled);
+        deliveryService.changeStatuses(Map.of(deliveryId(delivered), DeliveryStatus.COMP));
+        em.flush();
+
+        //when
+        int cancelledCount = orderRepository.cancelAll(List.of(open, cancelled, delivered));
+
+        //then // 반환값이 ids 수보다 작으면 cancelOrders 는 전체 롤백한다.
+        assertEquals(1, cancelledCount);
+        em.clear();
+        assertEquals(OrderStatus.ORDER, orderRepository.findOne(delivered).getStatus());
+    }
+
+    @Test
+    public void rejectNonPositiveCount() throws Exception {
+        //given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        OrderRequest.OrderLine line = new OrderRequest.OrderLine();
+        line.setItemId(itemId);
+        line.setCount(-3);
+        OrderRequest request = new OrderRequest();
+        request.setMemberId(memberId);
+        request.setLines(List.of(line));
+
+        //then // 0 이하 수량은 재고를 늘리므로 주문하지 않는다.
+        assertThrows(IllegalArgumentException.class, () -> orderService.order(memberId, itemId, 0));
+        assertThrows(IllegalArgumentException.class, () -> orderService.orderBatch(List.of(request)));
+        em.flush();
+        em.clear();
+        assertEquals(10, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    private Long deliveryId(Long orderId) {
+        return orderRepository.findOne(orderId).getDelivery().getId();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("cancel-member");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
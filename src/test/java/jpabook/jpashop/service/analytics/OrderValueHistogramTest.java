@@ -0,0 +1,52 @@
+package jpabook.jpashop.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderValueHistogramTest {
+
+    @Test
+    public void bucketsAreContinuous() throws Exception {
+        // 버킷 경계가 빈틈 없이 이어지고 값은 자기 버킷 [lower, nextLower) 안에 있다.
+        for (int value : new int[]{0, 1, 31, 32, 33, 63, 64, 1000, 10_000, 123_456, 2_500_000, Integer.MAX_VALUE}) {
+            int bucket = OrderValueHistogram.bucketOf(value);
+            assertTrue(OrderValueHistogram.lowerBound(bucket) <= value, "value=" + value);
+            assertTrue(value < OrderValueHistogram.lowerBound(bucket + 1), "value=" + value);
+        }
+    }
+
+    @Test
+    public void mergedPartitionsMatchSinglePass() throws Exception {
+        //given // 1000 ~ 100,000 을 두 파티션으로 나눠서 센다.
+        OrderValueHistogram all = new OrderValueHistogram();
+        OrderValueHistogram left = new OrderValueHistogram();
+        OrderValueHistogram right = new OrderValueHistogram();
+        for (int value = 1000; value <= 100_000; value += 1000) {
+            all.add(value);
+            (value <= 50_000 ? left : right).add(value);
+        }
+
+        //when
+        OrderValueStats merged = left.merge(right).toStats();
+        OrderValueStats single = all.toStats();
+
+        //then // count, sum, min, max 는 정확하고 백분위는 버킷 폭(약 3%) 이내
+        assertEquals(100, merged.getOrderCount());
+        assertEquals(5_050_000, merged.getRevenue());
+        assertEquals(1000, merged.getMin());
+        assertEquals(100_000, merged.getMax());
+        assertEquals(single.getP50(), merged.getP50());
+        assertEquals(50_000, merged.getP50(), 50_000 * 0.04);
+        assertEquals(90_000, merged.getP90(), 90_000 * 0.04);
+        assertEquals(99_000, merged.getP99(), 99_000 * 0.04);
+    }
+
+    @Test
+    public void empty() throws Exception {
+        OrderValueStats stats = new OrderValueHistogram().toStats();
+
+        assertEquals(0, stats.getOrderCount());
+        assertEquals(0, stats.getP99());
+    }
+}
@@ -0,0 +1,88 @@
+package jpabook.jpashop.service.async;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void unfinishedOrdersSurviveRestart() throws Exception {
+        //given // 세그먼트 하나에 레코드 4개
+        OrderLog orderLog = new OrderLog(directory, OrderLog.RECORD_SIZE * 4, true);
+        for (int i = 1; i <= 10; i++) {
+            assertEquals(i, orderLog.append(100 + i, 200 + i, i));
+        }
+
+        //when // 1~5 처리 완료, 6~7 은 꺼냈지만 완료 전에 종료
+        orderLog.complete(tickets(orderLog.poll(5, 0)));
+        orderLog.poll(2, 0);
+        orderLog.close();
+
+        //then // 재기동하면 6 부터 다시 꺼내고, ticket 은 이어서 준다.
+        OrderLog reopened = new OrderLog(directory, OrderLog.RECORD_SIZE * 4, true);
+        assertEquals(5, reopened.queuedCount());
+        List<QueuedOrder> orders = reopened.poll(100, 0);
+        assertEquals(List.of(6L, 7L, 8L, 9L, 10L), tickets(orders));
+        assertEquals(106, orders.get(0).getMemberId());
+        assertEquals(206, orders.get(0).getItemId());
+        assertEquals(6, orders.get(0).getCount());
+        assertEquals(11, reopened.append(1, 1, 1));
+        reopened.close();
+    }
+
+    @Test
+    public void checkpointFollowsContiguousCompletion() throws Exception {
+        //given
+        OrderLog orderLog = new OrderLog(directory, OrderLog.RECORD_SIZE * 4, false);
+        for (int i = 0; i < 6; i++) {
+            orderLog.append(1, 1, 1);
+        }
+        List<QueuedOrder> first = orderLog.poll(3, 0);
+        List<QueuedOrder> second = orderLog.poll(3, 0);
+
+        //when // 뒤 묶음이 먼저 끝나도 앞 묶음이 끝나기 전에는 checkpoint 가 넘어가지 않는다.
+        orderLog.complete(tickets(second));
+        assertEquals(3, orderLog.queuedCount());
+        orderLog.close();
+
+        //then
+        OrderLog reopened = new OrderLog(directory, OrderLog.RECORD_SIZE * 4, false);
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), tickets(reopened.poll(100, 0)));
+        reopened.complete(tickets(first));
+        reopened.complete(tickets(second));
+        assertEquals(0, reopened.queuedCount());
+        reopened.close();
+    }
+
+    @Test
+    public void ticketsStartAfterBase() throws Exception {
+        //given // node 마다 다른 ticket 범위
+        long base = 3L << 40;
+        OrderLog orderLog = new OrderLog(directory, OrderLog.RECORD_SIZE * 4, false, base);
+
+        //when
+        long ticket = orderLog.append(1, 1, 1);
+
+        //then // 재기동해도 범위 안에서 이어서 주고, 더 뒤 범위로는 열지 않는다.
+        assertEquals(base + 1, ticket);
+        assertEquals(List.of(base + 1), tickets(orderLog.poll(10, 0)));
+        orderLog.close();
+        OrderLog reopened = new OrderLog(directory, OrderLog.RECORD_SIZE * 4, false, base);
+        assertEquals(base + 2, reopened.append(1, 1, 1));
+        reopened.close();
+        assertThrows(IllegalStateException.class, () -> new OrderLog(directory, OrderLog.RECORD_SIZE * 4, false, 4L << 40));
+    }
+
+    private static List<Long> tickets(List<QueuedOrder> orders) {
+        return orders.stream().map(QueuedOrder::getTicket).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,111 @@
+package jpabook.jpashop.service.delivery;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class DeliveryImportServiceTest {
+
+    @Autowired DeliveryImportService deliveryImportService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired EntityManager em;
+
+    @Test
+    public void importCarrierCsv() throws Exception {
+        //given // 주문 2건 중 하나는 취소
+        Long memberId = createMember();
+        Long itemId = createBook();
+        Long shipped = orderService.order(memberId, itemId, 1);
+        Long cancelled = orderService.order(memberId, itemId, 1);
+        orderService.cancelOrder(cancelled);
+        String csv = "deliveryId,status\n" +
+                deliveryId(shipped) + ",COMP\n" +
+                deliveryId(cancelled) + ",comp\n" +
+                "\n" +
+                "999999999,COMP\n" +
+                "abc,COMP\n";
+
+        //when
+        DeliveryImportResult result = importCsv(csv);
+
+        //then // 취소된 주문, 없는 배송은 건너뛰고 잘못된 줄은 줄 번호와 함께 남긴다.
+        assertEquals(3, result.getLines());
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getSkipped());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(6, result.getErrors().get(0).getLine());
+
+        em.clear();
+        assertEquals(DeliveryStatus.COMP, orderRepository.findOne(shipped).getDelivery().getStatus());
+        assertEquals(DeliveryStatus.READY, orderRepository.findOne(cancelled).getDelivery().getStatus());
+        assertEquals(DeliveryStatus.COMP, em.find(OrderSummary.class, shipped).getDeliveryStatus());
+
+        //when // 같은 파일을 다시 올려도 바뀌는 것이 없다.
+        DeliveryImportResult again = importCsv(csv);
+
+        //then
+        assertEquals(0, again.getUpdated());
+        assertEquals(3, again.getSkipped());
+
+        //then // 배송 완료된 주문은 취소할 수 없다.
+        em.clear();
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(shipped));
+    }
+
+    @Test
+    public void parseNdjson() throws Exception {
+        DeliveryStatusUpdate update = CarrierFileFormat.NDJSON.parseLine("{\"deliveryId\": 7, \"status\": \"COMP\"}", objectMapper);
+
+        assertEquals(7L, update.getDeliveryId());
+        assertEquals(DeliveryStatus.COMP, update.getStatus());
+        assertThrows(IllegalArgumentException.class, () -> CarrierFileFormat.NDJSON.parseLine("{\"deliveryId\": 7}", objectMapper));
+        assertThrows(IllegalArgumentException.class, () -> CarrierFileFormat.NDJSON.parseLine("{\"deliveryId\": 7, \"status\": \"LOST\"}", objectMapper));
+    }
+
+    private DeliveryImportResult importCsv(String csv) throws Exception {
+        return deliveryImportService.importStatuses(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), CarrierFileFormat.CSV);
+    }
+
+    private Long deliveryId(Long orderId) {
+        return orderRepository.findOne(orderId).getDelivery().getId();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("delivery-member");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook() {
+        Book book = new Book();
+        book.setName("JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
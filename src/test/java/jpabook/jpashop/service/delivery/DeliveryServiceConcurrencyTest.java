@@ -0,0 +1,143 @@
+package jpabook.jpashop.service.delivery;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 같은 배송 상태 파일이 동시에 들어와도 배송마다 한번만 바뀌는지 확인
+ * 실제 커밋이 일어나야 하므로 @Transactional 을 걸지 않는다.
+ */
+@SpringBootTest
+class DeliveryServiceConcurrencyTest {
+
+    private static final int ORDERS = 20;
+    private static final int THREADS = 8;
+
+    @Autowired DeliveryService deliveryService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderService orderService;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    public void changeStatusesOncePerDelivery() throws Exception {
+        //given
+        Long memberId = memberService.join(createMember("delivery-concurrency"));
+        Long itemId = createBook("delivery concurrency item", ORDERS);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orderIds.add(orderService.order(memberId, itemId, 1));
+        }
+        Map<Long, DeliveryStatus> statuses = new HashMap<>();
+        orderRepository.findAllWithDelivery(orderIds)
+                .forEach(order -> statuses.put(order.getDelivery().getId(), DeliveryStatus.COMP));
+
+        //when // 같은 배송들을 여러 스레드에서 동시에 COMP 로 바꾼다.
+        AtomicInteger updated = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            executor.submit(() -> {
+                try {
+                    updated.addAndGet(deliveryService.changeStatuses(statuses));
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        //then // 조회와 UPDATE 사이에 다른 스레드가 바꾼 배송을 다시 세지 않는다.
+        assertEquals(ORDERS, updated.get());
+        assertEquals(0, deliveryService.changeStatuses(statuses));
+    }
+
+    @Test
+    public void cancelAgainstDeliveryImport() throws Exception {
+        //given // 주문마다 다른 상품(재고 1)
+        Long memberId = memberService.join(createMember("cancel-import-concurrency"));
+        Map<Long, Long> itemIds = new HashMap<>();
+        Map<Long, Long> deliveryIds = new HashMap<>();
+        for (int i = 0; i < ORDERS; i++) {
+            Long itemId = createBook("cancel import item " + i, 1);
+            Long orderId = orderService.order(memberId, itemId, 1);
+            itemIds.put(orderId, itemId);
+        }
+        orderRepository.findAllWithDelivery(new ArrayList<>(itemIds.keySet()))
+                .forEach(order -> deliveryIds.put(order.getId(), order.getDelivery().getId()));
+
+        //when // 같은 주문을 두 번 취소하면서 동시에 배송 완료를 반영
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch latch = new CountDownLatch(ORDERS * 3);
+        for (Long orderId : itemIds.keySet()) {
+            executor.submit(() -> cancel(orderId, latch));
+            executor.submit(() -> {
+                try {
+                    deliveryService.changeStatuses(Map.of(deliveryIds.get(orderId), DeliveryStatus.COMP));
+                } finally {
+                    latch.countDown();
+                }
+            });
+            executor.submit(() -> cancel(orderId, latch));
+        }
+        latch.await(1, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        //then // 취소된 주문은 배송 완료가 아니고, 재고는 한 번만 돌아온다.
+        for (Order order : orderRepository.findAllWithDelivery(new ArrayList<>(itemIds.keySet()))) {
+            boolean cancelled = order.getStatus() == OrderStatus.CANCEL;
+            assertFalse(cancelled && order.getDelivery().getStatus() == DeliveryStatus.COMP);
+            assertEquals(cancelled ? 1 : 0, itemService.findOne(itemIds.get(order.getId())).getStockQuantity());
+        }
+    }
+
+    private void cancel(Long orderId, CountDownLatch latch) {
+        try {
+            orderService.cancelOrder(orderId);
+        } catch (IllegalStateException e) {
+            // 이미 취소, 배송 완료
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return member;
+    }
+
+    private Long createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}